@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Deterministic inputs shared by the benchmarks, so that results are comparable between runs and
+ * releases.
+ */
+public final class BenchmarkInputs {
+
+  /** Text inputs selectable through a benchmark {@code @Param}. */
+  public enum Text {
+    /** A short attribute-like value with nothing to escape. */
+    SHORT_ASCII {
+      @Override
+      String value() {
+        return "row-highlight selected";
+      }
+    },
+    /** A short value containing every character the HTML escaper rewrites. */
+    SHORT_MARKUP {
+      @Override
+      String value() {
+        return "<b class=\"x\">Tom & Jerry's</b>";
+      }
+    },
+    /**
+     * About 64K characters of mixed-script user text, including supplementary code points and the
+     * occasional markup character.
+     */
+    LONG_MULTILINGUAL {
+      @Override
+      String value() {
+        return multilingualText(64 * 1024);
+      }
+    };
+
+    abstract String value();
+  }
+
+  private static final String[] MULTILINGUAL_WORDS = {
+    "hello",
+    "world",
+    "café",
+    "über",
+    "Привет",
+    "你好",
+    "こんにちは",
+    "مرحبا",
+    "שלום",
+    "नमस्ते",
+    "😀",
+    "a<b",
+    "Tom & Jerry",
+    "\"quoted\"",
+    "it's",
+  };
+
+  private static final char[] BASE64_ALPHABET =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+  private BenchmarkInputs() {}
+
+  /** Returns roughly {@code length} characters of space separated multilingual words. */
+  static String multilingualText(int length) {
+    Random random = new Random(42);
+    StringBuilder sb = new StringBuilder(length + 16);
+    while (sb.length() < length) {
+      sb.append(MULTILINGUAL_WORDS[random.nextInt(MULTILINGUAL_WORDS.length)]);
+      sb.append(random.nextInt(20) == 0 ? '\n' : ' ');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns a syntactically valid, allowlisted {@code data:image/png;base64,} URL whose base64
+   * payload is {@code payloadLength} characters long.
+   */
+  static String base64DataUrl(int payloadLength) {
+    Random random = new Random(42);
+    StringBuilder sb = new StringBuilder(payloadLength + 32);
+    sb.append("data:image/png;base64,");
+    for (int i = 0; i < payloadLength; i++) {
+      sb.append(BASE64_ALPHABET[random.nextInt(BASE64_ALPHABET.length)]);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types.benchmarks;
+
+import com.google.common.html.types.EscapedAttributeValueCache;
+import com.google.common.html.types.SafeHtml;
+import com.google.common.html.types.SafeHtmlBuilder;
+import com.google.common.html.types.SafeHtmlTemplate;
+import com.google.common.html.types.SafeHtmlTemplate.Slot;
+import com.google.common.html.types.SafeHtmls;
+import com.google.common.html.types.SafeUrl;
+import com.google.common.html.types.SafeUrls;
+import com.google.common.html.types.benchmarks.BenchmarkInputs.Text;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link SafeHtmlBuilder}, from construction through {@link
+ * SafeHtmlBuilder#build()}, the way a renderer builds one element per table cell or link.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SafeHtmlBuilderBenchmark {
+
+  @Param({"SHORT_ASCII", "SHORT_MARKUP", "LONG_MULTILINGUAL"})
+  public Text text;
+
+  private String input;
+  private SafeUrl url;
+  private SafeHtml child;
+
+  private final Slot<SafeUrl> hrefSlot = SafeHtmlTemplate.safeUrlSlot("href");
+  private final Slot<String> labelSlot = SafeHtmlTemplate.stringSlot("label");
+  private final Slot<SafeHtml> textSlot = SafeHtmlTemplate.safeHtmlSlot("text");
+  private SafeHtmlTemplate linkTemplate;
+  private final StringBuilder out = new StringBuilder();
+  private final EscapedAttributeValueCache attributeValueCache =
+      new EscapedAttributeValueCache(1024);
+
+  @Setup
+  public void setUp() {
+    input = text.value();
+    url = SafeUrls.sanitize("https://www.example.com/search?q=safe+html&hl=en");
+    child = new SafeHtmlBuilder("span").setClass("icon").build();
+    linkTemplate =
+        SafeHtmlTemplate.compile(
+            new SafeHtmlBuilder("a")
+                .setHref(hrefSlot.placeholder())
+                .setClass("nav-link")
+                .setRole("button")
+                .setAriaLabel(labelSlot.placeholder())
+                .setDataAttribute("data-tooltip", labelSlot.placeholder())
+                .appendContent(child, textSlot.placeholder()),
+            hrefSlot,
+            labelSlot,
+            textSlot);
+  }
+
+  /** A void element without attributes, the cheapest possible build. */
+  @Benchmark
+  public SafeHtml voidElement() {
+    return new SafeHtmlBuilder("br").build();
+  }
+
+  /** A table cell with a couple of attributes and escaped text content. */
+  @Benchmark
+  public SafeHtml cell() {
+    return new SafeHtmlBuilder("td")
+        .setClass("cell")
+        .setTitle(input)
+        .escapeAndAppendContent(input)
+        .build();
+  }
+
+  /** A link with a URL attribute, ARIA attributes and HTML content. */
+  @Benchmark
+  public SafeHtml link() {
+    return new SafeHtmlBuilder("a")
+        .setHref(url)
+        .setClass("nav-link")
+        .setRole("button")
+        .setAriaLabel(input)
+        .setDataAttribute("data-tooltip", input)
+        .appendContent(child)
+        .escapeAndAppendContent(input)
+        .build();
+  }
+
+  /**
+   * The same link as {@link #link()}, taking escaped attribute values from a cache. Values longer
+   * than the cache's limit are escaped as usual.
+   */
+  @Benchmark
+  public SafeHtml linkCachedAttributeValues() {
+    return new SafeHtmlBuilder("a")
+        .useEscapedAttributeValueCache(attributeValueCache)
+        .setHref(url)
+        .setClass("nav-link")
+        .setRole("button")
+        .setAriaLabel(input)
+        .setDataAttribute("data-tooltip", input)
+        .appendContent(child)
+        .escapeAndAppendContent(input)
+        .build();
+  }
+
+  /** The same cell as {@link #cell()}, appended to a reused buffer without creating a SafeHtml. */
+  @Benchmark
+  public int cellBuildTo() throws IOException {
+    out.setLength(0);
+    new SafeHtmlBuilder("td")
+        .setClass("cell")
+        .setTitle(input)
+        .escapeAndAppendContent(input)
+        .buildTo(out);
+    return out.length();
+  }
+
+  /** The same link as {@link #link()}, stamped from a template compiled once. */
+  @Benchmark
+  public SafeHtml linkTemplate() {
+    return linkTemplate
+        .stamp()
+        .set(hrefSlot, url)
+        .set(labelSlot, input)
+        .set(textSlot, SafeHtmls.htmlEscape(input))
+        .build();
+  }
+}
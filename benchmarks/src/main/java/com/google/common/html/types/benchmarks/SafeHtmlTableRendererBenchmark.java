@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types.benchmarks;
+
+import com.google.common.base.Function;
+import com.google.common.html.types.SafeHtml;
+import com.google.common.html.types.SafeHtmlBuilder;
+import com.google.common.html.types.SafeHtmlTableRenderer;
+import com.google.common.html.types.SafeHtmls;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for rendering a table body of three columns, with a {@link SafeHtmlBuilder} per cell
+ * and row versus a {@link SafeHtmlTableRenderer}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SafeHtmlTableRendererBenchmark {
+
+  private static final Function<String[], String> NAME =
+      new Function<String[], String>() {
+        @Override
+        public String apply(String[] row) {
+          return row[0];
+        }
+      };
+
+  private static final Function<String[], String> EMAIL =
+      new Function<String[], String>() {
+        @Override
+        public String apply(String[] row) {
+          return row[1];
+        }
+      };
+
+  private static final Function<String[], SafeHtml> NOTE =
+      new Function<String[], SafeHtml>() {
+        @Override
+        public SafeHtml apply(String[] row) {
+          return SafeHtmls.htmlEscape(row[2]);
+        }
+      };
+
+  @Param({"10", "1000"})
+  public int rows;
+
+  private List<String[]> data;
+  private SafeHtmlTableRenderer<String[]> renderer;
+  private final StringBuilder out = new StringBuilder();
+
+  @Setup
+  public void setUp() {
+    data = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      data.add(new String[] {"User " + i, "user" + i + "@example.com", "Tom & Jerry's #" + i});
+    }
+    renderer =
+        new SafeHtmlTableRenderer.Builder<String[]>(new SafeHtmlBuilder("tr").setClass("row"))
+            .addTextColumn(new SafeHtmlBuilder("td").setClass("name"), NAME)
+            .addTextColumn(new SafeHtmlBuilder("td").setClass("email"), EMAIL)
+            .addHtmlColumn(new SafeHtmlBuilder("td"), NOTE)
+            .build();
+  }
+
+  /** One builder per cell and row, concatenated. */
+  @Benchmark
+  public SafeHtml builders() {
+    List<SafeHtml> trs = new ArrayList<>(data.size());
+    for (String[] row : data) {
+      trs.add(
+          new SafeHtmlBuilder("tr")
+              .setClass("row")
+              .appendContent(
+                  new SafeHtmlBuilder("td")
+                      .setClass("name")
+                      .escapeAndAppendContent(NAME.apply(row))
+                      .build(),
+                  new SafeHtmlBuilder("td")
+                      .setClass("email")
+                      .escapeAndAppendContent(EMAIL.apply(row))
+                      .build(),
+                  new SafeHtmlBuilder("td").appendContent(NOTE.apply(row)).build())
+              .build());
+    }
+    return SafeHtmls.concat(trs);
+  }
+
+  /** The same rows from a renderer built once. */
+  @Benchmark
+  public SafeHtml renderer() {
+    return renderer.render(data);
+  }
+
+  /** The same rows appended to a reused buffer. */
+  @Benchmark
+  public int rendererTo() throws IOException {
+    out.setLength(0);
+    renderer.renderTo(data, out);
+    return out.length();
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types.benchmarks;
+
+import com.google.common.html.types.SafeStyle;
+import com.google.common.html.types.SafeStyleBuilder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks for {@link SafeStyleBuilder#build()}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SafeStyleBuilderBenchmark {
+
+  private String width = "120px";
+  private String color = "#1a73e8";
+  private String fontFamily = "Roboto";
+  private String imageUrl = "https://www.example.com/images/background.png";
+
+  /** A typical inline style with a handful of sanitized properties. */
+  @Benchmark
+  public SafeStyle simple() {
+    return new SafeStyleBuilder().width(width).color(color).display("inline-block").build();
+  }
+
+  /** A style exercising the font-family and url() sanitizers. */
+  @Benchmark
+  public SafeStyle fontAndBackground() {
+    return new SafeStyleBuilder()
+        .fontFamilyAppend(fontFamily, "Arial", "sans-serif")
+        .backgroundImageAppendUrl(imageUrl)
+        .backgroundRepeat("no-repeat")
+        .build();
+  }
+}
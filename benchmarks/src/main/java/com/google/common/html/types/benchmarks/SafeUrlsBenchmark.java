@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types.benchmarks;
+
+import com.google.common.html.types.SafeUrl;
+import com.google.common.html.types.SafeUrls;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks for {@link SafeUrls#sanitize(String)}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SafeUrlsBenchmark {
+
+  /** Length of the base64 payload of the data: URL; the largest is about 4MB. */
+  @Param({"1024", "4194304"})
+  public int dataUrlPayloadLength;
+
+  private String httpsUrl = "https://www.example.com/search?q=safe+html&hl=en";
+  private String relativeUrl = "/path/to/page.html#section:2";
+  private String javascriptUrl = "javascript:alert(1)";
+  private String dataUrl;
+
+  @Setup
+  public void setUp() {
+    dataUrl = BenchmarkInputs.base64DataUrl(dataUrlPayloadLength);
+  }
+
+  @Benchmark
+  public SafeUrl https() {
+    return SafeUrls.sanitize(httpsUrl);
+  }
+
+  @Benchmark
+  public SafeUrl relative() {
+    return SafeUrls.sanitize(relativeUrl);
+  }
+
+  @Benchmark
+  public SafeUrl rejected() {
+    return SafeUrls.sanitize(javascriptUrl);
+  }
+
+  @Benchmark
+  public SafeUrl dataUrl() {
+    return SafeUrls.sanitize(dataUrl);
+  }
+}
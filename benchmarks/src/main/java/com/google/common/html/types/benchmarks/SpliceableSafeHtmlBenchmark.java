@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types.benchmarks;
+
+import com.google.common.html.types.SafeHtml;
+import com.google.common.html.types.SafeHtmls;
+import com.google.common.html.types.SpliceCache;
+import com.google.common.html.types.SpliceableSafeHtml;
+import com.google.common.html.types.SpliceableSafeHtml.Segment;
+import com.google.common.html.types.SplicePlan;
+import com.google.common.html.types.benchmarks.BenchmarkInputs.Text;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link SpliceableSafeHtml#spliceAll(Map)} and {@link SplicePlan} over a page
+ * skeleton with static chrome between placeholders.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpliceableSafeHtmlBenchmark {
+
+  @Param({"SHORT_ASCII", "LONG_MULTILINGUAL"})
+  public Text text;
+
+  /** Number of placeholders in the skeleton. */
+  @Param({"4", "64"})
+  public int placeholders;
+
+  private SpliceableSafeHtml skeleton;
+  private Map<String, SafeHtml> substitutions;
+  private SplicePlan plan;
+  private SafeHtml[] values;
+  private final StringBuilder out = new StringBuilder();
+  private final SpliceCache spliceCache = new SpliceCache(16 << 20);
+
+  @Setup
+  public void setUp() {
+    SafeHtml chrome = SafeHtmls.htmlEscape(BenchmarkInputs.multilingualText(512));
+    List<Segment> segments = new ArrayList<>();
+    substitutions = new HashMap<>();
+    SafeHtml fill = SafeHtmls.htmlEscape(text.value());
+    for (int i = 0; i < placeholders; i++) {
+      String label = "slot" + i;
+      segments.add(Segment.fromSafeHtml(chrome));
+      segments.add(Segment.fromPlaceholderLabel(label));
+      substitutions.put(label, fill);
+    }
+    segments.add(Segment.fromSafeHtml(chrome));
+    skeleton = new SpliceableSafeHtml(segments);
+    plan = skeleton.compile();
+    values = new SafeHtml[plan.getSlotCount()];
+    for (int slot = 0; slot < values.length; slot++) {
+      values[slot] = substitutions.get(plan.getLabels().get(slot));
+    }
+  }
+
+  @Benchmark
+  public SafeHtml spliceAll() {
+    return skeleton.spliceAll(substitutions);
+  }
+
+  /** The same splice with values given by slot. */
+  @Benchmark
+  public SafeHtml planSplice() {
+    return plan.splice(values);
+  }
+
+  /** The same splice appended to a reused buffer, without creating a SafeHtml. */
+  @Benchmark
+  public int planSpliceTo() throws IOException {
+    out.setLength(0);
+    plan.spliceTo(out, values);
+    return out.length();
+  }
+
+  /** The same splice, encoded to UTF-8 as a whole. */
+  @Benchmark
+  public byte[] spliceAllUtf8() {
+    return skeleton.spliceAll(substitutions).toUtf8Bytes();
+  }
+
+  /**
+   * The same splice as UTF-8 buffers for a gathering write, sharing the encoded chrome. The fills
+   * are reused across iterations, so their cached encodings are too.
+   */
+  @Benchmark
+  public ByteBuffer[] planSpliceToUtf8Buffers() {
+    return plan.spliceToUtf8Buffers(values);
+  }
+
+  /** The same splice found in a {@link SpliceCache}, as when a page's fills don't change. */
+  @Benchmark
+  public SafeHtml cachedSplice() {
+    return spliceCache.splice(plan, values);
+  }
+}
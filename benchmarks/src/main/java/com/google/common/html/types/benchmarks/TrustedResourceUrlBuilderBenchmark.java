@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types.benchmarks;
+
+import com.google.common.html.types.TrustedResourceUrl;
+import com.google.common.html.types.TrustedResourceUrlBuilder;
+import com.google.common.html.types.benchmarks.BenchmarkInputs.Text;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks for {@link TrustedResourceUrlBuilder#appendQueryParam(String, String)}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrustedResourceUrlBuilderBenchmark {
+
+  @Param({"SHORT_ASCII", "SHORT_MARKUP", "LONG_MULTILINGUAL"})
+  public Text text;
+
+  private String value;
+
+  @Setup
+  public void setUp() {
+    value = text.value();
+  }
+
+  @Benchmark
+  public TrustedResourceUrl appendQueryParams() {
+    return new TrustedResourceUrlBuilder("https://www.example.com/api/v1/resource.js")
+        .appendQueryParam("q", value)
+        .appendQueryParam("hl", "en")
+        .appendQueryParam("callback", "handleResponse")
+        .build();
+  }
+}
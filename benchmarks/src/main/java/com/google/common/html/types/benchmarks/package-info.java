@@ -0,0 +1,24 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * JMH benchmarks for the factories and builders in {@code com.google.common.html.types}.
+ *
+ * <p>Run {@link com.google.common.html.types.benchmarks.BenchmarkMain} (the main class of the
+ * shaded {@code benchmarks.jar}) to get throughput together with the allocation rates reported by
+ * JMH's GC profiler.
+ */
+package com.google.common.html.types.benchmarks;
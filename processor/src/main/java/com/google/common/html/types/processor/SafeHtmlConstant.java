@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a {@link com.google.common.html.types.SafeHtml} constant built from compile-time
+ * constants, which {@link SafeHtmlConstantProcessor} checks while compiling.
+ *
+ * <p>The constant is the element {@code new SafeHtmlBuilder(element())} builds after setting each
+ * of {@link #attributes()} with the matching setter, appending the {@link #children()} and then
+ * {@link #text()}. Contracts the builder would enforce at runtime are enforced when compiling:
+ * a chain the builder would reject is a compile error. For an annotated class {@code Icons}, the
+ * processor generates a class {@code SafeHtmlConstants_Icons} in the same package with a {@code
+ * static final SafeHtml} field named {@link #name()}, initialized with the same builder calls.
+ * Those can't throw, so the constant costs a single build when the class is initialized.
+ *
+ * <pre>{@code
+ * @SafeHtmlConstants({
+ *   @SafeHtmlConstant(name = "ICON", element = "span", attributes = {"class=icon"}),
+ *   @SafeHtmlConstant(
+ *       name = "SAVE",
+ *       element = "button",
+ *       attributes = {"type=submit", "aria-label=Save"},
+ *       children = "ICON",
+ *       text = "Save"),
+ * })
+ * final class Icons {}
+ * }</pre>
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface SafeHtmlConstant {
+
+  /** Name of the generated field, which must be a Java identifier. */
+  String name();
+
+  /** Name of the element, as given to {@code new SafeHtmlBuilder(String)}. */
+  String element();
+
+  /**
+   * Attributes as {@code name=value}, set in order. Each is set with the builder's setter for the
+   * attribute: {@code aria-label} with {@code setAriaLabel} and {@code data-*} attributes with
+   * {@code setDataAttribute}. Setters taking an enum accept its attribute values, and those taking
+   * a {@code SafeStyle} accept any constant. URL attributes accept values {@code SafeUrls.sanitize}
+   * keeps as they are, which are set as a {@code TrustedResourceUrl} where the element requires
+   * one.
+   */
+  String[] attributes() default {};
+
+  /** Names of constants declared before this one on the same class, appended as content. */
+  String[] children() default {};
+
+  /** Text HTML-escaped and appended as content after the {@link #children()}. */
+  String text() default "";
+
+  /** Whether to call {@code useSlashOnVoid()} on the builder. */
+  boolean slashOnVoid() default false;
+}
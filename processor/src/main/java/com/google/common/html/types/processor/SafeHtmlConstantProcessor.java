@@ -0,0 +1,420 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types.processor;
+
+import com.google.common.base.Ascii;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.html.types.SafeHtml;
+import com.google.common.html.types.SafeHtmlBuilder;
+import com.google.common.html.types.SafeStyle;
+import com.google.common.html.types.SafeStyles;
+import com.google.common.html.types.SafeUrl;
+import com.google.common.html.types.SafeUrls;
+import com.google.common.html.types.TrustedResourceUrl;
+import com.google.common.html.types.TrustedResourceUrls;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+
+/**
+ * Builds the {@link SafeHtmlConstant}s declared on each annotated class with {@link
+ * SafeHtmlBuilder}, and generates a class holding them as {@code SafeHtml} constants.
+ *
+ * <p>Building runs the same code, and so checks the same contracts, as building at runtime would.
+ * What the builder throws for a declaration is reported as a compile error on the annotated class,
+ * and nothing is generated for it. Each generated constant is initialized with the same builder
+ * calls, with constant arguments, so the generated code only uses the builder's public API and
+ * needs no unchecked conversion.
+ */
+@SupportedAnnotationTypes({
+  "com.google.common.html.types.processor.SafeHtmlConstant",
+  "com.google.common.html.types.processor.SafeHtmlConstants"
+})
+public final class SafeHtmlConstantProcessor extends AbstractProcessor {
+
+  /** Prefix of the name of the class generated for an annotated class. */
+  static final String GENERATED_CLASS_PREFIX = "SafeHtmlConstants_";
+
+  /**
+   * Parameter types of attribute setters that can be given a constant, most preferred first. A
+   * URL is only used as a {@code TrustedResourceUrl} where the element doesn't accept it as a
+   * {@code SafeUrl}, such as on {@code <link rel="stylesheet">}.
+   */
+  private static final List<Class<?>> SETTER_PARAMETER_TYPES =
+      Arrays.<Class<?>>asList(
+          String.class, Enum.class, SafeUrl.class, TrustedResourceUrl.class, SafeStyle.class);
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    Set<TypeElement> holders = new LinkedHashSet<>();
+    for (Element element : roundEnv.getElementsAnnotatedWith(SafeHtmlConstant.class)) {
+      holders.add((TypeElement) element);
+    }
+    for (Element element : roundEnv.getElementsAnnotatedWith(SafeHtmlConstants.class)) {
+      holders.add((TypeElement) element);
+    }
+    for (TypeElement holder : holders) {
+      process(holder);
+    }
+    return true;
+  }
+
+  private void process(TypeElement holder) {
+    List<SafeHtmlConstant> declarations = new ArrayList<>();
+    SafeHtmlConstant single = holder.getAnnotation(SafeHtmlConstant.class);
+    if (single != null) {
+      declarations.add(single);
+    }
+    SafeHtmlConstants multiple = holder.getAnnotation(SafeHtmlConstants.class);
+    if (multiple != null) {
+      declarations.addAll(Arrays.asList(multiple.value()));
+    }
+
+    Map<String, SafeHtml> constants = new LinkedHashMap<>();
+    Map<String, String> initializers = new LinkedHashMap<>();
+    boolean valid = true;
+    for (SafeHtmlConstant declaration : declarations) {
+      try {
+        Preconditions.checkArgument(
+            SourceVersion.isIdentifier(declaration.name())
+                && !SourceVersion.isKeyword(declaration.name()),
+            "\"%s\" is not a valid field name.",
+            declaration.name());
+        Preconditions.checkArgument(
+            !constants.containsKey(declaration.name()),
+            "\"%s\" is declared more than once.",
+            declaration.name());
+        StringBuilder initializer = new StringBuilder();
+        constants.put(declaration.name(), build(declaration, constants, initializer));
+        initializers.put(declaration.name(), initializer.toString());
+      } catch (RuntimeException e) {
+        processingEnv
+            .getMessager()
+            .printMessage(
+                Diagnostic.Kind.ERROR,
+                "@SafeHtmlConstant " + declaration.name() + ": " + e.getMessage(),
+                holder);
+        valid = false;
+      }
+    }
+    if (valid) {
+      try {
+        write(holder, initializers);
+      } catch (IOException e) {
+        processingEnv
+            .getMessager()
+            .printMessage(Diagnostic.Kind.ERROR, "Could not write constants: " + e, holder);
+      }
+    }
+  }
+
+  /**
+   * Builds {@code declaration}, whose children must be among {@code constants}, and appends the
+   * Java expression making the same builder calls to {@code initializer}.
+   *
+   * @throws RuntimeException if {@link SafeHtmlBuilder} rejects it
+   */
+  // Every string used comes from an annotation value, which is a compile-time constant.
+  @SuppressWarnings("CompileTimeConstant")
+  static SafeHtml build(
+      SafeHtmlConstant declaration, Map<String, SafeHtml> constants, StringBuilder initializer) {
+    SafeHtmlBuilder builder = new SafeHtmlBuilder(declaration.element());
+    initializer.append("new SafeHtmlBuilder(");
+    appendStringLiteral(declaration.element(), initializer);
+    initializer.append(")");
+    for (String attribute : declaration.attributes()) {
+      int equals = attribute.indexOf('=');
+      Preconditions.checkArgument(
+          equals > 0, "Attribute \"%s\" must be written as name=value.", attribute);
+      String name = attribute.substring(0, equals);
+      String value = attribute.substring(equals + 1);
+      if (name.startsWith("data-")) {
+        builder.setDataAttribute(name, value);
+        appendCall(initializer, "setDataAttribute", name, value);
+      } else {
+        setAttribute(builder, name, value, initializer);
+      }
+    }
+    if (declaration.slashOnVoid()) {
+      builder.useSlashOnVoid();
+      appendCall(initializer, "useSlashOnVoid");
+    }
+    for (String child : declaration.children()) {
+      SafeHtml html = constants.get(child);
+      Preconditions.checkArgument(
+          html != null, "Child \"%s\" must name a constant declared before it.", child);
+      builder.appendContent(html);
+      initializer.append("\n          .appendContent(").append(child).append(")");
+    }
+    if (!declaration.text().isEmpty()) {
+      builder.escapeAndAppendContent(declaration.text());
+      appendCall(initializer, "escapeAndAppendContent", declaration.text());
+    }
+    initializer.append("\n          .build()");
+    return builder.build();
+  }
+
+  /** Appends a call to builder method {@code method} with string literal arguments. */
+  private static void appendCall(StringBuilder initializer, String method, String... arguments) {
+    initializer.append("\n          .").append(method).append("(");
+    for (int i = 0; i < arguments.length; i++) {
+      if (i > 0) {
+        initializer.append(", ");
+      }
+      appendStringLiteral(arguments[i], initializer);
+    }
+    initializer.append(")");
+  }
+
+  /**
+   * Sets {@code name} to {@code value} with the most preferred setter that accepts it, and appends
+   * the call to {@code initializer}.
+   */
+  private static void setAttribute(
+      SafeHtmlBuilder builder, String name, String value, StringBuilder initializer) {
+    String setterName = setterName(name);
+    Method[] setters = new Method[SETTER_PARAMETER_TYPES.size()];
+    for (Method method : SafeHtmlBuilder.class.getMethods()) {
+      if (method.getName().equals(setterName) && method.getParameterTypes().length == 1) {
+        Class<?> type = method.getParameterTypes()[0];
+        int rank = SETTER_PARAMETER_TYPES.indexOf(type.isEnum() ? Enum.class : type);
+        if (rank >= 0) {
+          setters[rank] = method;
+        }
+      }
+    }
+
+    if (setters[SETTER_PARAMETER_TYPES.indexOf(SafeUrl.class)] != null) {
+      // Checked up front so that a URL SafeUrls.sanitize rejects isn't then accepted as a
+      // TrustedResourceUrl.
+      toArgument(SafeUrl.class, value);
+    }
+
+    IllegalArgumentException failure = null;
+    for (Method setter : setters) {
+      if (setter == null) {
+        continue;
+      }
+      try {
+        Object argument = toArgument(setter.getParameterTypes()[0], value);
+        setter.invoke(builder, argument);
+        initializer.append("\n          .").append(setter.getName()).append("(");
+        appendArgument(argument, initializer);
+        initializer.append(")");
+        return;
+      } catch (IllegalArgumentException e) {
+        // Not a value for this setter, so try a less preferred one.
+        failure = e;
+      } catch (InvocationTargetException e) {
+        if (!(e.getCause() instanceof IllegalArgumentException)) {
+          Throwables.propagateIfPossible(e.getCause());
+          throw new AssertionError(e);
+        }
+        // Not allowed for this element with this setter, so try a less preferred one.
+        failure = (IllegalArgumentException) e.getCause();
+      } catch (IllegalAccessException e) {
+        throw new AssertionError(e);
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    throw new IllegalArgumentException(
+        "Attribute \"" + name + "\" has no setter taking a constant value.");
+  }
+
+  /**
+   * Converts {@code value} to a {@code type} argument.
+   *
+   * @throws IllegalArgumentException if {@code value} is not a valid {@code type}
+   */
+  // Every value comes from an annotation value, which is a compile-time constant.
+  @SuppressWarnings("CompileTimeConstant")
+  private static Object toArgument(Class<?> type, String value) {
+    if (type == String.class) {
+      return value;
+    }
+    if (type == TrustedResourceUrl.class) {
+      return TrustedResourceUrls.fromConstant(value);
+    }
+    if (type == SafeStyle.class) {
+      return SafeStyles.fromConstant(value);
+    }
+    if (type == SafeUrl.class) {
+      SafeUrl url = SafeUrls.sanitize(value);
+      if (!url.getSafeUrlString().equals(value)) {
+        throw new IllegalArgumentException("\"" + value + "\" is not a safe URL.");
+      }
+      return url;
+    }
+    List<String> allowed = new ArrayList<>();
+    for (Object constant : type.getEnumConstants()) {
+      if (constant.toString().equals(value)) {
+        return constant;
+      }
+      allowed.add(constant.toString());
+    }
+    throw new IllegalArgumentException(
+        "\"" + value + "\" is not one of the allowed values " + allowed + ".");
+  }
+
+  /**
+   * Appends a Java expression creating {@code argument}, as returned by {@link #toArgument}, from
+   * the same constant.
+   */
+  private static void appendArgument(Object argument, StringBuilder out) {
+    if (argument instanceof String) {
+      appendStringLiteral((String) argument, out);
+    } else if (argument instanceof Enum) {
+      out.append(argument.getClass().getCanonicalName())
+          .append('.')
+          .append(((Enum<?>) argument).name());
+    } else {
+      String factory;
+      String value;
+      if (argument instanceof TrustedResourceUrl) {
+        factory = TrustedResourceUrls.class.getName() + ".fromConstant(";
+        value = ((TrustedResourceUrl) argument).getTrustedResourceUrlString();
+      } else if (argument instanceof SafeStyle) {
+        factory = SafeStyles.class.getName() + ".fromConstant(";
+        value = ((SafeStyle) argument).getSafeStyleString();
+      } else {
+        factory = SafeUrls.class.getName() + ".sanitize(";
+        value = ((SafeUrl) argument).getSafeUrlString();
+      }
+      out.append(factory);
+      appendStringLiteral(value, out);
+      out.append(')');
+    }
+  }
+
+  /** Returns the name of the setter for {@code attribute}, such as setAriaLabel for aria-label. */
+  private static String setterName(String attribute) {
+    StringBuilder sb = new StringBuilder("set");
+    for (String part : attribute.split("-")) {
+      if (!part.isEmpty()) {
+        sb.append(Ascii.toUpperCase(part.charAt(0))).append(Ascii.toLowerCase(part.substring(1)));
+      }
+    }
+    return sb.toString();
+  }
+
+  private void write(TypeElement holder, Map<String, String> initializers) throws IOException {
+    String packageName =
+        processingEnv.getElementUtils().getPackageOf(holder).getQualifiedName().toString();
+    String className = GENERATED_CLASS_PREFIX + flatName(holder);
+
+    StringBuilder source = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+    source
+        .append("import com.google.common.html.types.SafeHtml;\n")
+        .append("import com.google.common.html.types.SafeHtmlBuilder;\n")
+        .append("import javax.annotation.Generated;\n\n")
+        .append("/** SafeHtml constants declared on {@link ")
+        .append(holder.getQualifiedName())
+        .append("}, checked while compiling. */\n")
+        .append("@Generated(\"")
+        .append(SafeHtmlConstantProcessor.class.getName())
+        .append("\")\n")
+        .append("final class ")
+        .append(className)
+        .append(" {\n");
+    for (Map.Entry<String, String> initializer : initializers.entrySet()) {
+      source
+          .append("  static final SafeHtml ")
+          .append(initializer.getKey())
+          .append(" =\n      ")
+          .append(initializer.getValue())
+          .append(";\n\n");
+    }
+    source.append("  private ").append(className).append("() {}\n}\n");
+
+    String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+    try (Writer writer =
+        processingEnv.getFiler().createSourceFile(qualifiedName, holder).openWriter()) {
+      writer.write(source.toString());
+    }
+  }
+
+  /** Returns the simple names of {@code type} and the types it is nested in, joined by '_'. */
+  private static String flatName(TypeElement type) {
+    String name = type.getSimpleName().toString();
+    Element enclosing = type.getEnclosingElement();
+    if (type.getNestingKind() == NestingKind.MEMBER && enclosing instanceof TypeElement) {
+      return flatName((TypeElement) enclosing) + "_" + name;
+    }
+    return name;
+  }
+
+  /** Appends {@code s} as a Java string literal, escaping everything outside printable ASCII. */
+  static void appendStringLiteral(String s, StringBuilder out) {
+    out.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"':
+          out.append("\\\"");
+          break;
+        case '\\':
+          out.append("\\\\");
+          break;
+        case '\n':
+          out.append("\\n");
+          break;
+        case '\r':
+          out.append("\\r");
+          break;
+        case '\t':
+          out.append("\\t");
+          break;
+        default:
+          if (c >= 0x20 && c < 0x7F) {
+            out.append(c);
+          } else {
+            // Unicode escapes of line terminators would end the literal, so those were handled
+            // above.
+            out.append(String.format("\\u%04x", (int) c));
+          }
+      }
+    }
+    out.append('"');
+  }
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * An optional annotation processor that turns {@code SafeHtmlBuilder} chains made only of
+ * compile-time constants into precomputed {@code SafeHtml} constants. See {@link
+ * com.google.common.html.types.processor.SafeHtmlConstant}.
+ */
+package com.google.common.html.types.processor;
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types.processor;
+
+import com.google.common.html.types.SafeHtml;
+import java.io.File;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link SafeHtmlConstantProcessor}. */
+public class SafeHtmlConstantProcessorTest extends TestCase {
+
+  private Path dir;
+
+  @Override
+  protected void setUp() throws Exception {
+    dir = Files.createTempDirectory("SafeHtmlConstantProcessorTest");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    delete(dir.toFile());
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  public void testGeneratesConstants() throws Exception {
+    DiagnosticCollector<JavaFileObject> diagnostics =
+        compile(
+            "package test;",
+            "import com.google.common.html.types.processor.SafeHtmlConstant;",
+            "import com.google.common.html.types.processor.SafeHtmlConstants;",
+            "@SafeHtmlConstants({",
+            "  @SafeHtmlConstant(name = \"BR\", element = \"br\", slashOnVoid = true),",
+            "  @SafeHtmlConstant(",
+            "      name = \"ICON\",",
+            "      element = \"span\",",
+            "      attributes = {\"class=icon\", \"aria-hidden=true\", \"data-x=\\\"\"}),",
+            "  @SafeHtmlConstant(",
+            "      name = \"HOME\",",
+            "      element = \"a\",",
+            "      attributes = {\"href=/home?a=1&b=2\", \"target=_blank\", \"title=café\"},",
+            "      children = \"ICON\",",
+            "      text = \"<Home>\\n\"),",
+            "  @SafeHtmlConstant(",
+            "      name = \"STYLES\",",
+            "      element = \"link\",",
+            "      attributes = {\"rel=stylesheet\", \"href=/s.css\", \"style=color:red;\"}),",
+            "})",
+            "class Icons {",
+            "  static final Object HOME = SafeHtmlConstants_Icons.HOME;",
+            "}");
+    assertTrue(diagnostics.getDiagnostics().toString(), diagnostics.getDiagnostics().isEmpty());
+
+    Class<?> generated = load("test.SafeHtmlConstants_Icons");
+    assertEquals("<br/>", constant(generated, "BR"));
+    assertEquals(
+        "<span class=\"icon\" aria-hidden=\"true\" data-x=\"&quot;\"></span>",
+        constant(generated, "ICON"));
+    assertEquals(
+        "<a href=\"/home?a=1&amp;b=2\" target=\"_blank\" title=\"café\">"
+            + "<span class=\"icon\" aria-hidden=\"true\" data-x=\"&quot;\"></span>"
+            + "&lt;Home&gt;\n</a>",
+        constant(generated, "HOME"));
+    assertEquals(
+        "<link rel=\"stylesheet\" href=\"/s.css\" style=\"color:red;\">",
+        constant(generated, "STYLES"));
+  }
+
+  public void testGeneratesBuilderCalls() throws Exception {
+    DiagnosticCollector<JavaFileObject> diagnostics =
+        compile(
+            "package test;",
+            "import com.google.common.html.types.processor.SafeHtmlConstant;",
+            "@SafeHtmlConstant(",
+            "    name = \"LINK\",",
+            "    element = \"a\",",
+            "    attributes = {\"href=/a\", \"target=_blank\"},",
+            "    text = \"A\")",
+            "class Links {}");
+    assertTrue(diagnostics.getDiagnostics().toString(), diagnostics.getDiagnostics().isEmpty());
+    String source =
+        new String(
+            Files.readAllBytes(dir.resolve("test/SafeHtmlConstants_Links.java")),
+            StandardCharsets.UTF_8);
+    assertTrue(
+        source,
+        source.contains(
+            "new SafeHtmlBuilder(\"a\")\n"
+                + "          .setHref(com.google.common.html.types.SafeUrls.sanitize(\"/a\"))\n"
+                + "          .setTarget("
+                + "com.google.common.html.types.SafeHtmlBuilder.TargetValue.BLANK)\n"
+                + "          .escapeAndAppendContent(\"A\")\n"
+                + "          .build();"));
+    assertFalse(source, source.contains("UncheckedConversions"));
+  }
+
+  public void testNestedClass() throws Exception {
+    DiagnosticCollector<JavaFileObject> diagnostics =
+        compile(
+            "package test;",
+            "import com.google.common.html.types.processor.SafeHtmlConstant;",
+            "class Outer {",
+            "  @SafeHtmlConstant(name = \"HR\", element = \"hr\")",
+            "  static class Inner {}",
+            "}");
+    assertTrue(diagnostics.getDiagnostics().toString(), diagnostics.getDiagnostics().isEmpty());
+    assertEquals("<hr>", constant(load("test.SafeHtmlConstants_Outer_Inner"), "HR"));
+  }
+
+  public void testReportsBuilderErrors() throws Exception {
+    assertError("is not supported", "@SafeHtmlConstant(name = \"X\", element = \"object\")");
+    assertError(
+        "is a void element",
+        "@SafeHtmlConstant(name = \"X\", element = \"br\", text = \"a\")");
+    assertError(
+        "is not a safe URL",
+        "@SafeHtmlConstant(name = \"X\", element = \"a\", attributes = \"href=javascript:x\")");
+    assertError(
+        "is not one of the allowed values",
+        "@SafeHtmlConstant(name = \"X\", element = \"a\", attributes = \"target=_top\")");
+    assertError(
+        "has no setter",
+        "@SafeHtmlConstant(name = \"X\", element = \"a\", attributes = \"onclick=x()\")");
+    assertError(
+        "must be written as name=value",
+        "@SafeHtmlConstant(name = \"X\", element = \"a\", attributes = \"title\")");
+    assertError(
+        "must name a constant declared before it",
+        "@SafeHtmlConstant(name = \"X\", element = \"a\", children = \"Y\")");
+    assertError("not a valid field name", "@SafeHtmlConstant(name = \"class\", element = \"a\")");
+  }
+
+  public void testAppendStringLiteral() {
+    StringBuilder sb = new StringBuilder();
+    SafeHtmlConstantProcessor.appendStringLiteral("a\"\\\n\r\t\u0001\u00e9\u2028", sb);
+    assertEquals("\"a\\\"\\\\\\n\\r\\t\\u0001\\u00e9\\u2028\"", sb.toString());
+  }
+
+  private void assertError(String message, String annotation) throws Exception {
+    DiagnosticCollector<JavaFileObject> diagnostics =
+        compile(
+            "package test;",
+            "import com.google.common.html.types.processor.SafeHtmlConstant;",
+            annotation,
+            "class Broken {}");
+    List<Diagnostic<? extends JavaFileObject>> errors = diagnostics.getDiagnostics();
+    assertEquals(errors.toString(), 1, errors.size());
+    assertEquals(Diagnostic.Kind.ERROR, errors.get(0).getKind());
+    String actual = errors.get(0).getMessage(null);
+    assertTrue(actual, actual.contains(message));
+  }
+
+  private DiagnosticCollector<JavaFileObject> compile(String... lines) throws Exception {
+    // A new file each time, since the compiler may cache what it read from an earlier one.
+    Path source = Files.createTempDirectory(dir, "src").resolve("Source.java");
+    Files.write(source, Arrays.asList(lines), StandardCharsets.UTF_8);
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    try (StandardJavaFileManager files =
+        compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(
+              new StringWriter(),
+              files,
+              diagnostics,
+              Arrays.asList(
+                  "-classpath", System.getProperty("java.class.path"),
+                  "-d", dir.toString(),
+                  "-s", dir.toString()),
+              null,
+              files.getJavaFileObjects(source.toFile()));
+      task.setProcessors(Collections.singletonList(new SafeHtmlConstantProcessor()));
+      task.call();
+    }
+    return diagnostics;
+  }
+
+  private Class<?> load(String className) throws Exception {
+    ClassLoader loader =
+        new URLClassLoader(new URL[] {dir.toUri().toURL()}, getClass().getClassLoader());
+    return Class.forName(className, true, loader);
+  }
+
+  private static String constant(Class<?> generated, String name) throws Exception {
+    Field field = generated.getDeclaredField(name);
+    field.setAccessible(true);
+    return ((SafeHtml) field.get(null)).getSafeHtmlString();
+  }
+}
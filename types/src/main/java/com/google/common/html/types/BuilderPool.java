@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Preconditions;
+import com.google.errorprone.annotations.CheckReturnValue;
+import com.google.errorprone.annotations.CompileTimeConstant;
+import java.util.concurrent.ArrayBlockingQueue;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A bounded pool of {@link SafeHtmlBuilder}s and {@link SafeStyleBuilder}s, so that code building
+ * many elements, for example one per table row, can reuse builders and the space they have
+ * allocated instead of creating new ones.
+ *
+ * <pre>{@code
+ * SafeHtmlBuilder cell = POOL.acquireHtmlBuilder("td");
+ * try {
+ *   html = cell.setClass("cell").escapeAndAppendContent(text).build();
+ * } finally {
+ *   POOL.release(cell);
+ * }
+ * }</pre>
+ *
+ * <p>Builders are not thread-safe, so a builder must only be used by the code that acquired it,
+ * and not at all once released. Each builder must be released at most once per time it is
+ * acquired. Releasing it again before it is acquired would let the pool hand the same builder to
+ * two callers, so it throws instead. The pool itself may be shared by any number of threads. It is
+ * not keyed by thread, unlike a {@code ThreadLocal}, so it neither keeps builders around for
+ * every thread that ever used it nor loses reuse when each task runs on its own short-lived
+ * (for example, virtual) thread. Acquiring and releasing only briefly hold a {@code
+ * java.util.concurrent} lock, never a monitor, so they don't pin a virtual thread to its carrier.
+ *
+ * <p>When the pool is empty, a new builder is created; when it is full, released builders are
+ * dropped.
+ */
+@CheckReturnValue
+@GwtIncompatible("java.util.concurrent.ArrayBlockingQueue")
+@ThreadSafe
+public final class BuilderPool {
+
+  private final ArrayBlockingQueue<SafeHtmlBuilder> htmlBuilders;
+  private final ArrayBlockingQueue<SafeStyleBuilder> styleBuilders;
+
+  /** Creates a pool keeping up to {@code capacity} builders of each kind. */
+  public BuilderPool(int capacity) {
+    Preconditions.checkArgument(capacity > 0, "capacity must be positive: %s", capacity);
+    htmlBuilders = new ArrayBlockingQueue<>(capacity);
+    styleBuilders = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Returns a builder for the given {@code elementName}, as {@link
+   * SafeHtmlBuilder#SafeHtmlBuilder(String)} would.
+   *
+   * @throws IllegalArgumentException if {@code elementName} contains invalid characters or is not
+   *     supported
+   */
+  public SafeHtmlBuilder acquireHtmlBuilder(@CompileTimeConstant final String elementName) {
+    SafeHtmlBuilder builder = htmlBuilders.poll();
+    if (builder == null) {
+      return new SafeHtmlBuilder(elementName);
+    }
+    builder.reset(elementName);
+    builder.released = false;
+    return builder;
+  }
+
+  /** Returns an empty {@link SafeStyleBuilder}. */
+  public SafeStyleBuilder acquireStyleBuilder() {
+    SafeStyleBuilder builder = styleBuilders.poll();
+    if (builder == null) {
+      return new SafeStyleBuilder();
+    }
+    builder.released = false;
+    return builder;
+  }
+
+  /**
+   * Returns {@code builder} to the pool. It is reset right away, so that the pool doesn't keep its
+   * attribute values and contents reachable.
+   *
+   * @throws IllegalStateException if {@code builder} was released and not acquired since
+   */
+  public void release(SafeHtmlBuilder builder) {
+    Preconditions.checkState(!builder.released, "The builder was already released.");
+    builder.released = true;
+    htmlBuilders.offer(builder.reset());
+  }
+
+  /**
+   * Returns {@code builder} to the pool. It is reset right away.
+   *
+   * @throws IllegalStateException if {@code builder} was released and not acquired since
+   */
+  public void release(SafeStyleBuilder builder) {
+    Preconditions.checkState(!builder.released, "The builder was already released.");
+    builder.released = true;
+    styleBuilders.offer(builder.reset());
+  }
+}
@@ -17,9 +17,9 @@
 package com.google.common.html.types;
 
 import com.google.common.annotations.GwtCompatible;
-import com.google.common.escape.Escaper;
-import com.google.common.escape.Escapers;
 import com.google.errorprone.annotations.CheckReturnValue;
+import java.io.IOException;
+import javax.annotation.Nullable;
 
 /**
  * Static utility methods shared by safe-HTML types' factory and builder classes, such as {@link
@@ -31,28 +31,227 @@ final class BuilderUtils {
 
   private BuilderUtils() {}
 
-  static String coerceToInterchangeValid(String text) {
-    // MOE elided code that uses a non-public library to make sure text only
-    // contains minimally-encoded Unicode scalar values that can appear in
-    // both HTML and XML.
-    return text;
+  private static final int ELEMENT_NAME_CHAR = 1;
+  private static final int DATA_ATTRIBUTE_NAME_CHAR = 2;
 
+  /** The classes each ASCII character belongs to, as a combination of the flags above. */
+  private static final byte[] NAME_CHAR_CLASSES = new byte[0x80];
+
+  static {
+    for (char c = 'a'; c <= 'z'; c++) {
+      NAME_CHAR_CLASSES[c] = ELEMENT_NAME_CHAR | DATA_ATTRIBUTE_NAME_CHAR;
+    }
+    for (char c = 'A'; c <= 'Z'; c++) {
+      NAME_CHAR_CLASSES[c] = DATA_ATTRIBUTE_NAME_CHAR;
+    }
+    for (char c = '0'; c <= '9'; c++) {
+      NAME_CHAR_CLASSES[c] = ELEMENT_NAME_CHAR;
+    }
+    NAME_CHAR_CLASSES['-'] = ELEMENT_NAME_CHAR | DATA_ATTRIBUTE_NAME_CHAR;
+  }
+
+  /**
+   * Returns {@code text} HTML-escaped, with every code point that is not a minimally-encoded
+   * Unicode scalar value that can appear in both HTML and XML replaced by U+FFFD, in a single pass.
+   * These are unpaired surrogates, non-characters, and control characters other than tab, line
+   * feed and carriage return, including form feed, DEL and the C1 controls.
+   *
+   * <p>Returns {@code text} itself if there is nothing to replace or escape.
+   */
+  static String coerceAndEscapeHtml(String text) {
+    return replaceAll(text, COERCIONS_AND_HTML_ESCAPES);
+  }
+
+  /**
+   * Appends the characters of {@code s} from {@code start} (inclusive) to {@code end} (exclusive)
+   * to {@code out}, coerced and HTML-escaped as {@link #coerceAndEscapeHtml(String)} does. Runs of
+   * characters that need no replacement are appended as ranges of {@code s}, so no escaped copy of
+   * the whole input is made.
+   */
+  static void coerceAndEscapeHtml(CharSequence s, int start, int end, Appendable out)
+      throws IOException {
+    String[] table = COERCIONS_AND_HTML_ESCAPES;
+    int runStart = start;
+    for (int i = indexOfReplacement(s, start, end, table);
+        i < end;
+        i = indexOfReplacement(s, runStart, end, table)) {
+      if (runStart < i) {
+        out.append(s, runStart, i);
+      }
+      int width = codePointWidthAt(s, i, end);
+      out.append(replacementAt(s, i, width, table));
+      runStart = i + width;
+    }
+    if (runStart < end) {
+      out.append(s, runStart, end);
+    }
+  }
+
+  /**
+   * Returns the length of {@code coerceAndEscapeHtml(s)}, without building it, so that callers can
+   * size their output before appending {@code s} with {@link #coerceAndEscapeHtml(CharSequence,
+   * int, int, Appendable)}.
+   */
+  static int coercedAndEscapedHtmlLength(CharSequence s) {
+    String[] table = COERCIONS_AND_HTML_ESCAPES;
+    int end = s.length();
+    int escapedLength = end;
+    for (int i = indexOfReplacement(s, 0, end, table);
+        i < end;
+        i = indexOfReplacement(s, i, end, table)) {
+      int width = codePointWidthAt(s, i, end);
+      escapedLength += replacementAt(s, i, width, table).length() - width;
+      i += width;
+    }
+    return escapedLength;
+  }
+
+  /**
+   * Returns what {@link #coerceAndEscapeHtml(String)} replaces the code point at {@code i} in
+   * {@code s} with, or null if it is kept as is.
+   *
+   * @param width the number of chars making up the code point, as given by {@link
+   *     #codePointWidthAt}
+   */
+  @Nullable
+  static String coercedHtmlEscapeAt(CharSequence s, int i, int width) {
+    return replacementAt(s, i, width, COERCIONS_AND_HTML_ESCAPES);
+  }
+
+  /**
+   * Returns 2 if the chars of {@code s} at {@code i} and {@code i + 1}, which must be before {@code
+   * end}, are a surrogate pair and 1 otherwise.
+   */
+  static int codePointWidthAt(CharSequence s, int i, int end) {
+    return Character.isHighSurrogate(s.charAt(i))
+            && i + 1 < end
+            && Character.isLowSurrogate(s.charAt(i + 1))
+        ? 2
+        : 1;
+  }
+
+  /** Returns whether {@code name} matches {@code [a-z0-9-]+}. */
+  static boolean isValidElementName(String name) {
+    return !name.isEmpty() && allCharsIn(name, 0, ELEMENT_NAME_CHAR);
+  }
+
+  /** Returns whether {@code name} matches {@code data-[a-zA-Z-]+}. */
+  static boolean isValidDataAttributeName(String name) {
+    return name.length() > 5
+        && name.startsWith("data-")
+        && allCharsIn(name, 5, DATA_ATTRIBUTE_NAME_CHAR);
   }
 
-  static String escapeHtmlInternal(String s) {
-    return HTML_ESCAPER.escape(s);
+  private static boolean allCharsIn(String s, int start, int charClass) {
+    for (int i = start; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c >= NAME_CHAR_CLASSES.length || (NAME_CHAR_CLASSES[c] & charClass) == 0) {
+        return false;
+      }
+    }
+    return true;
   }
 
-  // This is exactly what j.c.g.common.html.HtmlEscapers.htmlEscaper() does. However, depending on
-  // j.c.g.common.html is problematic because it has no android target, substantial internal only
-  // code, and it pulls a lot of other dependencies with it.
-  private static final Escaper HTML_ESCAPER =
-      Escapers.builder()
-          .addEscape('"', "&quot;")
-          // Note: "&apos;" is not defined in HTML 4.01.
-          .addEscape('\'', "&#39;")
-          .addEscape('&', "&amp;")
-          .addEscape('<', "&lt;")
-          .addEscape('>', "&gt;")
-          .build();
+  private static String replaceAll(String s, String[] table) {
+    int length = s.length();
+    int first = indexOfReplacement(s, 0, length, table);
+    if (first == length) {
+      return s;
+    }
+
+    // Size the output exactly, so there's a single allocation and no resizing. Both loops
+    // alternate between one replaced code point and the run of kept chars that follows it.
+    int replacedLength = first;
+    for (int i = first; i < length; ) {
+      int width = codePointWidthAt(s, i, length);
+      replacedLength += replacementAt(s, i, width, table).length();
+      int next = indexOfReplacement(s, i + width, length, table);
+      replacedLength += next - (i + width);
+      i = next;
+    }
+
+    char[] replaced = new char[replacedLength];
+    s.getChars(0, first, replaced, 0);
+    int pos = first;
+    for (int i = first; i < length; ) {
+      int width = codePointWidthAt(s, i, length);
+      String replacement = replacementAt(s, i, width, table);
+      replacement.getChars(0, replacement.length(), replaced, pos);
+      pos += replacement.length();
+      int next = indexOfReplacement(s, i + width, length, table);
+      s.getChars(i + width, next, replaced, pos);
+      pos += next - (i + width);
+      i = next;
+    }
+    return new String(replaced);
+  }
+
+  /**
+   * Returns the index of the first code point in {@code s} from {@code start} (inclusive) to {@code
+   * end} (exclusive) that {@code table} replaces, or {@code end} if there is none.
+   */
+  private static int indexOfReplacement(CharSequence s, int start, int end, String[] table) {
+    for (int i = start; i < end; i++) {
+      char c = s.charAt(i);
+      if (c < table.length) {
+        if (table[c] != null) {
+          return i;
+        }
+      } else if (c >= Character.MIN_SURROGATE) {
+        // Everything from the end of the table up to the surrogates is kept.
+        int width = codePointWidthAt(s, i, end);
+        if (replacementAt(s, i, width, table) != null) {
+          return i;
+        }
+        i += width - 1;
+      }
+    }
+    return end;
+  }
+
+  @Nullable
+  private static String replacementAt(CharSequence s, int i, int width, String[] table) {
+    char c = s.charAt(i);
+    if (width == 2) {
+      return isNonCharacter(Character.toCodePoint(c, s.charAt(i + 1)))
+          ? REPLACEMENT_CHARACTER
+          : null;
+    }
+    if (c < table.length) {
+      return table[c];
+    }
+    return Character.isSurrogate(c) || isNonCharacter(c) ? REPLACEMENT_CHARACTER : null;
+  }
+
+  private static boolean isNonCharacter(int codePoint) {
+    return (codePoint >= 0xFDD0 && codePoint <= 0xFDEF) || (codePoint & 0xFFFE) == 0xFFFE;
+  }
+
+  private static final String REPLACEMENT_CHARACTER = "\uFFFD";
+
+  /**
+   * Replacements for chars up to the end of the C1 controls when coercing and HTML-escaping.
+   * Characters past the end of the table are kept unless they are surrogates or non-characters.
+   */
+  private static final String[] COERCIONS_AND_HTML_ESCAPES = new String[0xA0];
+
+  static {
+    for (char c = 0; c < COERCIONS_AND_HTML_ESCAPES.length; c++) {
+      if ((c < 0x20 && c != '\t' && c != '\n' && c != '\r') || c >= 0x7F) {
+        COERCIONS_AND_HTML_ESCAPES[c] = REPLACEMENT_CHARACTER;
+      }
+    }
+
+    // This is exactly what j.c.g.common.html.HtmlEscapers.htmlEscaper() does. However, depending on
+    // j.c.g.common.html is problematic because it has no android target, substantial internal only
+    // code, and it pulls a lot of other dependencies with it. A lookup table indexed by character
+    // is used instead of com.google.common.escape.Escapers so that the common case of text with
+    // nothing to escape is a single scan without allocation.
+    COERCIONS_AND_HTML_ESCAPES['"'] = "&quot;";
+    // Note: "&apos;" is not defined in HTML 4.01.
+    COERCIONS_AND_HTML_ESCAPES['\''] = "&#39;";
+    COERCIONS_AND_HTML_ESCAPES['&'] = "&amp;";
+    COERCIONS_AND_HTML_ESCAPES['<'] = "&lt;";
+    COERCIONS_AND_HTML_ESCAPES['>'] = "&gt;";
+  }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import static com.google.common.html.types.BuilderUtils.coerceAndEscapeHtml;
+
+import com.google.common.annotations.GwtCompatible;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.errorprone.annotations.CheckReturnValue;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A bounded cache of HTML-escaped attribute values for {@link SafeHtmlBuilder}, so that values
+ * repeated across many elements, such as those of {@code class}, {@code role}, {@code aria-*},
+ * {@code type} or {@code target}, are escaped once rather than every time an element is built.
+ *
+ * <p>Caching is off unless enabled, either for one builder with {@link
+ * SafeHtmlBuilder#useEscapedAttributeValueCache(EscapedAttributeValueCache)} or for every builder
+ * with {@link #setDefault(EscapedAttributeValueCache)}. Only values up to {@link
+ * #MAX_CACHED_VALUE_LENGTH} chars long are cached, since longer ones are rarely repeated. Once the
+ * cache holds its maximum number of values, the least recently used ones are evicted first.
+ *
+ * <p>Lookups hash the raw value, which a {@code String} computes only once, and compare it with
+ * {@code equals}, which returns right away for the same instance, as is the case for constants.
+ * Whether caching pays off depends on how often values repeat, which {@link #stats()} tells.
+ */
+@CheckReturnValue
+@GwtCompatible
+@ThreadSafe
+public final class EscapedAttributeValueCache {
+
+  /** Values longer than this, in chars, are escaped without being cached. */
+  @VisibleForTesting static final int MAX_CACHED_VALUE_LENGTH = 64;
+
+  @Nullable private static volatile EscapedAttributeValueCache defaultCache;
+
+  private final Cache<String, String> cache;
+
+  /** Creates a cache holding up to {@code maximumSize} escaped values. */
+  public EscapedAttributeValueCache(int maximumSize) {
+    Preconditions.checkArgument(maximumSize > 0, "maximumSize must be positive: %s", maximumSize);
+    cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+  }
+
+  /**
+   * Sets the cache used by every {@link SafeHtmlBuilder} that doesn't have one of its own, or
+   * turns caching off for them if {@code cache} is null.
+   */
+  public static void setDefault(@Nullable EscapedAttributeValueCache cache) {
+    defaultCache = cache;
+  }
+
+  /** Returns the cache set with {@link #setDefault}, or null if there is none. */
+  @Nullable
+  public static EscapedAttributeValueCache getDefault() {
+    return defaultCache;
+  }
+
+  /**
+   * Returns how many lookups found their value already escaped and how many didn't. Values too
+   * long to be cached are not counted.
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /** Removes all escaped values from this cache. Its {@link #stats()} are kept. */
+  public void clear() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * Returns {@code value} HTML-escaped and coerced to interchange-valid Unicode, or null if it is
+   * too long to be cached, in which case the caller should escape it itself.
+   */
+  @Nullable
+  String escape(String value) {
+    if (value.length() > MAX_CACHED_VALUE_LENGTH) {
+      return null;
+    }
+    String escaped = cache.getIfPresent(value);
+    if (escaped == null) {
+      escaped = coerceAndEscapeHtml(value);
+      cache.put(value, escaped);
+    }
+    return escaped;
+  }
+}
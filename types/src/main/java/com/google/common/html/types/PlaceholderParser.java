@@ -0,0 +1,376 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import com.google.common.base.Ascii;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.html.types.SpliceableSafeHtml.Segment;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits HTML into the segments of a {@link SpliceableSafeHtml} at placeholder comments, for
+ * {@link SpliceableSafeHtml#parse(SafeHtml)}.
+ *
+ * <p>The HTML is scanned once, jumping from one {@code <} to the next. Comments are only taken as
+ * placeholders where the HTML parser would see them as comments too: tags, including their
+ * attribute values, and the contents of elements whose text is not parsed as markup, such as
+ * {@code script} or {@code textarea}, are skipped over whole, reading them as the HTML tokenizer
+ * does. Where the end of such content depends on more than the tokenizer, the rest of the HTML is
+ * kept as is: after a script with a nested {@code <script} in an escaped ({@code <!--}) part, a
+ * {@code noscript} element whose content doesn't end in the same place whether it is read as text
+ * or as markup, and {@code svg} or {@code math} content that switches back to HTML. The rest of
+ * {@code svg} and {@code math} content has no placeholders either.
+ */
+final class PlaceholderParser {
+
+  /** Elements whose content is text, in which {@code <!--} doesn't start a comment. */
+  private static final ImmutableSet<String> RAW_TEXT_ELEMENTS =
+      ImmutableSet.of("iframe", "noembed", "noframes", "style", "textarea", "title", "xmp");
+
+  /** Elements whose content is foreign: parsed as markup, but with no raw text elements. */
+  private static final ImmutableSet<String> FOREIGN_ELEMENTS = ImmutableSet.of("math", "svg");
+
+  /**
+   * Start tags in foreign content that either take it back to HTML or start an element whose
+   * content is HTML. {@code font} only does the former with some attributes.
+   */
+  private static final ImmutableSet<String> HTML_IN_FOREIGN_CONTENT =
+      ImmutableSet.of(
+          "annotation-xml", "b", "big", "blockquote", "body", "br", "center", "code", "dd", "desc",
+          "div", "dl", "dt", "em", "embed", "font", "foreignobject", "h1", "h2", "h3", "h4", "h5",
+          "h6", "head", "hr", "i", "img", "li", "listing", "menu", "meta", "mi", "mn", "mo", "ms",
+          "mtext", "nobr", "ol", "p", "pre", "ruby", "s", "small", "span", "strike", "strong",
+          "sub", "sup", "table", "title", "tt", "u", "ul", "var");
+
+  private final String html;
+  private final List<Segment> segments = new ArrayList<>();
+
+  /** Start of the HTML not yet added to {@link #segments}. */
+  private int segmentStart;
+
+  /** Whether the last tag {@link #endOfTag} skipped was self-closing, as in {@code <svg/>}. */
+  private boolean selfClosing;
+
+  private PlaceholderParser(String html) {
+    this.html = html;
+  }
+
+  /** Returns the segments of {@code html}, with a placeholder for each placeholder comment. */
+  static List<Segment> parse(String html) {
+    PlaceholderParser parser = new PlaceholderParser(html);
+    parser.scan();
+    return parser.segments;
+  }
+
+  /**
+   * Returns whether {@code label}, the text of a comment, names a placeholder: it is not empty
+   * and only consists of ASCII letters, digits, {@code _}, {@code -}, {@code .} and {@code :}.
+   */
+  private static boolean isPlaceholderLabel(String label) {
+    if (label.length() == 0) {
+      return false;
+    }
+    for (int i = 0; i < label.length(); i++) {
+      char c = label.charAt(i);
+      if (!(isAsciiLetter(c)
+          || (c >= '0' && c <= '9')
+          || c == '_'
+          || c == '-'
+          || c == '.'
+          || c == ':')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void scan() {
+    scan(0, html.length(), true);
+    if (segmentStart < html.length()) {
+      addHtml(html.length());
+    }
+  }
+
+  /**
+   * Scans the markup from {@code from} to {@code limit}, taking comments as placeholders if {@code
+   * placeholders} is set. Returns the index right after what was skipped last, which is {@code
+   * limit} unless a tag, comment or element content runs past it, or -1 if it runs to the end of
+   * the HTML or the rest of it is to be kept as is.
+   */
+  private int scan(int from, int limit, boolean placeholders) {
+    int i = from;
+    while (i >= 0 && i < limit) {
+      int lt = html.indexOf('<', i);
+      if (lt < 0 || lt >= limit) {
+        return limit;
+      }
+      if (html.startsWith("<!--", lt)) {
+        i = comment(lt, placeholders);
+      } else if (isAsciiLetter(charAt(lt + 1))) {
+        i = startTag(lt);
+      } else if (charAt(lt + 1) == '/' && isAsciiLetter(charAt(lt + 2))) {
+        // End tags are read like start tags, attributes included.
+        i = endOfTag(endOfTagName(lt + 2));
+      } else if (charAt(lt + 1) == '/' || charAt(lt + 1) == '!' || charAt(lt + 1) == '?') {
+        i = endOfBogusComment(lt);
+      } else {
+        i = lt + 1;
+      }
+    }
+    return i;
+  }
+
+  /**
+   * Handles the comment starting at {@code start}, and returns the index right after it, or -1 if
+   * it runs to the end of the HTML. It is only taken as a placeholder if {@code placeholder} is
+   * set.
+   */
+  private int comment(int start, boolean placeholder) {
+    int textStart = start + 4;
+    if (html.startsWith(">", textStart) || html.startsWith("->", textStart)) {
+      // "<!-->" and "<!--->" are empty comments.
+      return html.indexOf('>', textStart) + 1;
+    }
+    for (int end = html.indexOf("--", textStart); end >= 0; end = html.indexOf("--", end + 1)) {
+      if (charAt(end + 2) == '!' && charAt(end + 3) == '>') {
+        // "--!>" ends a comment too, but isn't how placeholders are written.
+        return end + 4;
+      }
+      if (charAt(end + 2) == '>') {
+        String label = html.substring(textStart, end);
+        if (placeholder && isPlaceholderLabel(label)) {
+          addHtml(start);
+          segments.add(Segment.fromPlaceholderLabel(label));
+          segmentStart = end + 3;
+        }
+        return end + 3;
+      }
+    }
+    // The comment runs to the end of the HTML.
+    return -1;
+  }
+
+  /** Returns the index right after the doctype or bogus comment starting at {@code start}. */
+  private int endOfBogusComment(int start) {
+    int gt = html.indexOf('>', start + 1);
+    return gt < 0 ? -1 : gt + 1;
+  }
+
+  /**
+   * Skips the start tag starting at {@code start}, and the element's content if it is not parsed
+   * as markup that may hold placeholders. Returns the index right after what was skipped, or -1 if
+   * it runs to the end of the HTML or the rest of it is to be kept as is.
+   */
+  private int startTag(int start) {
+    int nameEnd = endOfTagName(start + 1);
+    int end = endOfTag(nameEnd);
+    if (end < 0) {
+      return -1;
+    }
+    String name = Ascii.toLowerCase(html.substring(start + 1, nameEnd));
+    if (name.equals("plaintext")) {
+      // Everything after it is text, even what looks like its end tag.
+      return -1;
+    } else if (name.equals("script")) {
+      return endOfScript(end);
+    } else if (name.equals("noscript")) {
+      return endOfNoscript(end);
+    } else if (RAW_TEXT_ELEMENTS.contains(name)) {
+      return indexOfTag("</", name, end);
+    } else if (FOREIGN_ELEMENTS.contains(name) && !selfClosing) {
+      return endOfForeignContent(name, end);
+    }
+    return end;
+  }
+
+  /**
+   * Returns the index right after the {@code >} ending the tag whose name ends at {@code from}, or
+   * -1 if there is none, and sets {@link #selfClosing}. Attributes are read as the HTML tokenizer
+   * reads them: only a quote right after the {@code =} following an attribute name, whitespace
+   * aside, starts a quoted value. Quotes anywhere else are part of a name or an unquoted value.
+   */
+  private int endOfTag(int from) {
+    // Whether an attribute name was read, so that an '=' starts its value.
+    boolean afterName = false;
+    boolean afterSlash = false;
+    int i = from;
+    while (i < html.length()) {
+      char c = html.charAt(i);
+      if (c == '>') {
+        selfClosing = afterSlash;
+        return i + 1;
+      }
+      afterSlash = c == '/';
+      if (c == '=' && afterName) {
+        i = endOfAttributeValue(i + 1);
+        if (i < 0) {
+          return -1;
+        }
+        afterName = false;
+      } else {
+        // Whitespace may separate a name from its '='. Anything but a slash is part of a name,
+        // even an '=' or a quote that starts it.
+        afterName = !afterSlash && (afterName || !isHtmlWhitespace(c));
+        i++;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index right after the attribute value that follows an {@code =} ending right
+   * before {@code from}, or -1 if a quoted value runs to the end of the HTML. An unquoted value
+   * ends at the next whitespace or {@code >}.
+   */
+  private int endOfAttributeValue(int from) {
+    int i = from;
+    while (i < html.length() && isHtmlWhitespace(html.charAt(i))) {
+      i++;
+    }
+    char quote = charAt(i);
+    if (quote == '"' || quote == '\'') {
+      int end = html.indexOf(quote, i + 1);
+      return end < 0 ? -1 : end + 1;
+    }
+    while (i < html.length() && !isHtmlWhitespace(html.charAt(i)) && html.charAt(i) != '>') {
+      i++;
+    }
+    return i;
+  }
+
+  /** Returns the index of the end of the tag name starting at {@code from}. */
+  private int endOfTagName(int from) {
+    int i = from;
+    while (i < html.length() && !isTagNameEnd(html.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Returns the index of the first {@code open}, {@code "<"} or {@code "</"}, followed by tag name
+   * {@code name} in any ASCII case from {@code from}, or -1 if there is none.
+   */
+  private int indexOfTag(String open, String name, int from) {
+    for (int i = html.indexOf(open, from); i >= 0; i = html.indexOf(open, i + 1)) {
+      int nameStart = i + open.length();
+      int nameEnd = nameStart + name.length();
+      if (nameEnd < html.length()
+          && isTagNameEnd(html.charAt(nameEnd))
+          && Ascii.equalsIgnoreCase(html.subSequence(nameStart, nameEnd), name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index of the end tag of the script whose content starts at {@code from}, or -1 if
+   * there is none. A {@code <script} in an escaped part, which starts at {@code <!--}, hides the
+   * next {@code </script>}, so the end of such scripts isn't looked for.
+   */
+  private int endOfScript(int from) {
+    int end = indexOfTag("</", "script", from);
+    int escape = html.indexOf("<!--", from);
+    if (end < 0 || escape < 0 || escape > end) {
+      return end;
+    }
+    int nested = indexOfTag("<", "script", escape + 4);
+    return nested >= 0 && nested < end ? -1 : end;
+  }
+
+  /**
+   * Returns the index of the end tag of the noscript element whose content starts at {@code from},
+   * or -1 if there is none. The content is text if scripting is enabled and markup otherwise, so
+   * the end tag only counts if scanning the content as markup ends right there too.
+   */
+  private int endOfNoscript(int from) {
+    int end = indexOfTag("</", "noscript", from);
+    return end >= 0 && scan(from, end, false) == end ? end : -1;
+  }
+
+  /**
+   * Returns the index right after the end tag of foreign element {@code root}, whose content
+   * starts at {@code from}. Returns -1 if there is none or the content doesn't stay foreign up to
+   * it. Foreign content has no raw text elements, but it has CDATA sections.
+   */
+  private int endOfForeignContent(String root, int from) {
+    int depth = 1;
+    int i = from;
+    while (i >= 0) {
+      int lt = html.indexOf('<', i);
+      if (lt < 0) {
+        return -1;
+      }
+      if (html.startsWith("<!--", lt)) {
+        i = comment(lt, false);
+      } else if (html.startsWith("<![CDATA[", lt)) {
+        int end = html.indexOf("]]>", lt + 9);
+        i = end < 0 ? -1 : end + 3;
+      } else if (isAsciiLetter(charAt(lt + 1))) {
+        int nameEnd = endOfTagName(lt + 1);
+        String name = Ascii.toLowerCase(html.substring(lt + 1, nameEnd));
+        if (HTML_IN_FOREIGN_CONTENT.contains(name)) {
+          return -1;
+        }
+        i = endOfTag(nameEnd);
+        if (name.equals(root) && !selfClosing) {
+          depth++;
+        }
+      } else if (charAt(lt + 1) == '/' && isAsciiLetter(charAt(lt + 2))) {
+        int nameEnd = endOfTagName(lt + 2);
+        String name = Ascii.toLowerCase(html.substring(lt + 2, nameEnd));
+        if (name.equals("br") || name.equals("p")) {
+          return -1;
+        }
+        i = endOfTag(nameEnd);
+        if (name.equals(root) && --depth == 0) {
+          return i;
+        }
+      } else if (charAt(lt + 1) == '/' || charAt(lt + 1) == '!' || charAt(lt + 1) == '?') {
+        i = endOfBogusComment(lt);
+      } else {
+        i = lt + 1;
+      }
+    }
+    return -1;
+  }
+
+  private void addHtml(int end) {
+    if (end > segmentStart) {
+      segments.add(Segment.fromSafeHtml(SafeHtmls.create(html.substring(segmentStart, end))));
+    }
+  }
+
+  private char charAt(int i) {
+    return i < html.length() ? html.charAt(i) : 0;
+  }
+
+  private static boolean isAsciiLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  /** Returns whether {@code c} is HTML whitespace, counting carriage returns, read as newlines. */
+  private static boolean isHtmlWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+  }
+
+  private static boolean isTagNameEnd(char c) {
+    return isHtmlWhitespace(c) || c == '/' || c == '>';
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.io.Resources;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
+
+/**
+ * Caches the contents of classpath resources loaded by {@code fromResource} in {@link SafeHtmls},
+ * {@link SafeScripts} and {@link SafeStyleSheets}, so that handlers calling those on every request
+ * only pay for I/O and decoding once.
+ *
+ * <p>Entries are keyed by class loader, absolute resource name and charset, and are evicted least
+ * recently used first once the memory they hold exceeds {@link #MAX_CACHED_BYTES}. Class loaders
+ * are only weakly referenced, so that caching doesn't keep them from being unloaded.
+ */
+@GwtIncompatible("java.nio.channels.FileChannel")
+final class ResourceCache {
+
+  /** Upper bound on the total {@link Resource#weight} of cached resources, in bytes. */
+  @VisibleForTesting static final long MAX_CACHED_BYTES = 64 << 20;
+
+  /**
+   * Resources in a directory on the file system at least this big are read by mapping them into
+   * memory rather than through a stream.
+   */
+  @VisibleForTesting static final long MIN_MAPPED_BYTES = 1 << 20;
+
+  private static final Cache<Key, Resource> CACHE = newCache(MAX_CACHED_BYTES);
+
+  /**
+   * Returns a cache holding resources up to a total weight of {@code maximumBytes}. The cache has a
+   * single segment: Guava splits the maximum weight evenly between segments, so with its default
+   * of four, any resource over a quarter of the budget would be evicted as soon as it is loaded.
+   */
+  @VisibleForTesting
+  static <K> Cache<K, Resource> newCache(long maximumBytes) {
+    return CacheBuilder.newBuilder()
+        .concurrencyLevel(1)
+        .maximumWeight(maximumBytes)
+        .weigher(
+            new Weigher<K, Resource>() {
+              @Override
+              public int weigh(K key, Resource resource) {
+                return resource.weight;
+              }
+            })
+        .build();
+  }
+
+  /**
+   * Returns the resource {@code resourceName} as found by {@link Resources#getResource(String)},
+   * decoded with {@code charset}.
+   *
+   * @throws IllegalArgumentException if the resource is not found
+   */
+  static Resource get(String resourceName, Charset charset) throws IOException {
+    ClassLoader loader =
+        MoreObjects.firstNonNull(
+            Thread.currentThread().getContextClassLoader(), ResourceCache.class.getClassLoader());
+    return get(loader, resourceName, charset);
+  }
+
+  /**
+   * Returns the resource {@code resourceName} as found by {@link Resources#getResource(Class,
+   * String)}, decoded with {@code charset}.
+   *
+   * @throws IllegalArgumentException if the resource is not found
+   */
+  static Resource get(Class<?> contextClass, String resourceName, Charset charset)
+      throws IOException {
+    ClassLoader loader = contextClass.getClassLoader();
+    if (loader == null) {
+      // Loaded by the bootstrap class loader, which Class.getResource delegates to the system one.
+      loader = ClassLoader.getSystemClassLoader();
+    }
+    return get(loader, absoluteName(contextClass, resourceName), charset);
+  }
+
+  @VisibleForTesting
+  static void clear() {
+    CACHE.invalidateAll();
+  }
+
+  private static Resource get(
+      final ClassLoader loader, final String resourceName, final Charset charset)
+      throws IOException {
+    try {
+      return CACHE.get(
+          new Key(loader, resourceName, charset),
+          new Callable<Resource>() {
+            @Override
+            public Resource call() throws IOException {
+              URL url = loader.getResource(resourceName);
+              Preconditions.checkArgument(url != null, "resource %s not found.", resourceName);
+              return new Resource(read(url, charset));
+            }
+          });
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new AssertionError(e);
+    } catch (UncheckedExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  /** Resolves {@code resourceName} relative to {@code contextClass}'s package, as Class does. */
+  private static String absoluteName(Class<?> contextClass, String resourceName) {
+    if (resourceName.startsWith("/")) {
+      return resourceName.substring(1);
+    }
+    while (contextClass.isArray()) {
+      contextClass = contextClass.getComponentType();
+    }
+    String className = contextClass.getName();
+    int lastDot = className.lastIndexOf('.');
+    return lastDot < 0
+        ? resourceName
+        : className.substring(0, lastDot).replace('.', '/') + "/" + resourceName;
+  }
+
+  private static String read(URL url, Charset charset) throws IOException {
+    Path path = null;
+    if ("file".equals(url.getProtocol())) {
+      try {
+        path = Paths.get(url.toURI());
+      } catch (URISyntaxException | IllegalArgumentException e) {
+        // Fall back to reading through the URL.
+      }
+    }
+    if (path != null) {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        long size = channel.size();
+        if (size >= MIN_MAPPED_BYTES) {
+          // Decodes straight out of the page cache, without copying the file into a byte[] first.
+          return charset.decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, size)).toString();
+        }
+      }
+    }
+    return Resources.toString(url, charset);
+  }
+
+  /** A decoded resource, and the safe values wrapping it created so far. */
+  static final class Resource {
+    final String text;
+
+    /**
+     * Estimate of the memory this resource holds once served, in bytes: two per char of text, which
+     * the safe values share, plus the UTF-8 encoding that a value caches when first encoded.
+     */
+    final int weight;
+
+    // Created on first use, so that each caller gets the same value and its cached encodings.
+    @Nullable private volatile SafeHtml html;
+    @Nullable private volatile SafeScript script;
+    @Nullable private volatile SafeStyleSheet styleSheet;
+
+    Resource(String text) {
+      this.text = text;
+      this.weight = Ints.saturatedCast(2L * text.length() + utf8Length(text));
+    }
+
+    /** Returns the length of {@code text.getBytes(UTF_8)}, without encoding it. */
+    private static long utf8Length(String text) {
+      long length = 0;
+      for (int i = 0; i < text.length(); i++) {
+        char c = text.charAt(i);
+        if (c < 0x80) {
+          length += 1;
+        } else if (c < 0x800) {
+          length += 2;
+        } else if (Character.isHighSurrogate(c)
+            && i + 1 < text.length()
+            && Character.isLowSurrogate(text.charAt(i + 1))) {
+          length += 4;
+          i++;
+        } else {
+          // Unpaired surrogates are encoded as '?'.
+          length += Character.isSurrogate(c) ? 1 : 3;
+        }
+      }
+      return length;
+    }
+
+    SafeHtml toSafeHtml() {
+      SafeHtml value = html;
+      if (value == null) {
+        value = SafeHtmls.create(text);
+        html = value;
+      }
+      return value;
+    }
+
+    SafeScript toSafeScript() {
+      SafeScript value = script;
+      if (value == null) {
+        value = SafeScripts.create(text);
+        script = value;
+      }
+      return value;
+    }
+
+    SafeStyleSheet toSafeStyleSheet() {
+      SafeStyleSheet value = styleSheet;
+      if (value == null) {
+        value = SafeStyleSheets.create(text);
+        styleSheet = value;
+      }
+      return value;
+    }
+  }
+
+  /** Identifies a resource without keeping its class loader reachable. */
+  private static final class Key {
+    private final WeakReference<ClassLoader> loader;
+    private final String resourceName;
+    private final Charset charset;
+    private final int hashCode;
+
+    Key(ClassLoader loader, String resourceName, Charset charset) {
+      this.loader = new WeakReference<>(loader);
+      this.resourceName = resourceName;
+      this.charset = charset;
+      this.hashCode =
+          31 * (31 * System.identityHashCode(loader) + resourceName.hashCode())
+              + charset.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) other;
+      ClassLoader loader = this.loader.get();
+      // Keys whose class loader has been collected are never looked up again, and age out.
+      return loader != null
+          && loader == that.loader.get()
+          && resourceName.equals(that.resourceName)
+          && charset.equals(that.charset);
+    }
+  }
+
+  private ResourceCache() {}
+}
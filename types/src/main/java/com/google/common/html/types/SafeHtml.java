@@ -16,7 +16,16 @@
 
 package com.google.common.html.types;
 
+import com.google.common.annotations.GwtIncompatible;
 import com.google.errorprone.annotations.CheckReturnValue;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import jsinterop.annotations.JsType;
@@ -30,6 +39,10 @@ import jsinterop.annotations.JsType;
  * <p>Values of this type are guaranteed to be safe to use in HTML contexts, such as, assignment to
  * the innerHTML DOM property, or interpolation into a HTML template in HTML PC_DATA context, in the
  * sense that the use will not result in a Cross-Site-Scripting vulnerability.
+ *
+ * <p>Values produced by {@link SafeHtmls#concat} are ropes: they link to their parts and are only
+ * flattened into a single string, once, when {@link #getSafeHtmlString} is first called. {@link
+ * #writeTo(Appendable)} writes them out part by part without flattening them.
  */
 @CheckReturnValue
 @Immutable
@@ -45,18 +58,88 @@ public final class SafeHtml {
   /** The SafeHtml wrapping the HTML doctype. */
   public static final SafeHtml DOCTYPE = new SafeHtml("<!DOCTYPE html>");
 
-  private final String privateDoNotAccessOrElseSafeHtmlWrappedValue;
+  /**
+   * Concatenations shorter than this are flattened right away, since copying that many chars costs
+   * less than keeping and later walking a rope node.
+   */
+  static final int MIN_ROPE_LENGTH = 256;
+
+  /** The wrapped string, or null for a rope. */
+  @Nullable private final String privateDoNotAccessOrElseSafeHtmlWrappedValue;
+
+  /**
+   * This value's string encoded as UTF-8, or null until first needed. Like {@code String}'s hash,
+   * it is computed without locking, since racing threads compute the same bytes.
+   */
+  @SuppressWarnings("Immutable") // A cache, never exposed.
+  @Nullable
+  private volatile byte[] utf8;
+
+  /** The parts or flattened string of a rope, or null for a value that wraps a string. */
+  @SuppressWarnings("Immutable") // Only ever changes from the parts to the same string.
+  @Nullable
+  private final Rope rope;
+
+  /** Length of the wrapped string. */
+  private final int length;
 
   SafeHtml(String html) {
     if (html == null) {
       throw new NullPointerException();
     }
     this.privateDoNotAccessOrElseSafeHtmlWrappedValue = html;
+    this.rope = null;
+    this.length = html.length();
+  }
+
+  private SafeHtml(SafeHtml[] children, int length) {
+    this.privateDoNotAccessOrElseSafeHtmlWrappedValue = null;
+    this.rope = new Rope(children);
+    this.length = length;
+  }
+
+  /** Returns the length of this value's underlying string, without flattening a rope. */
+  int length() {
+    return length;
+  }
+
+  /** Whether this value wraps a string rather than being a rope. */
+  boolean isFlat() {
+    return rope == null;
+  }
+
+  /**
+   * Returns the concatenation of {@code htmls}, linking to them rather than copying their contents
+   * unless the result is short.
+   */
+  static SafeHtml concat(Iterable<SafeHtml> htmls) {
+    List<SafeHtml> parts = new ArrayList<>();
+    int concatLength = 0;
+    for (SafeHtml html : htmls) {
+      if (html.length > 0) {
+        parts.add(html);
+        concatLength += html.length;
+      }
+    }
+    if (parts.isEmpty()) {
+      return EMPTY;
+    }
+    if (parts.size() == 1) {
+      return parts.get(0);
+    }
+    if (concatLength < MIN_ROPE_LENGTH) {
+      StringBuilder result = new StringBuilder(concatLength);
+      for (SafeHtml part : parts) {
+        result.append(part.getSafeHtmlString());
+      }
+      return new SafeHtml(result.toString());
+    }
+    return new SafeHtml(parts.toArray(new SafeHtml[parts.size()]), concatLength);
   }
 
   @Override
   public int hashCode() {
-    return privateDoNotAccessOrElseSafeHtmlWrappedValue.hashCode() ^ 0x33b02fa9;
+    return getSafeHtmlString().hashCode() ^ 0x33b02fa9;
   }
 
   @Override
@@ -65,8 +148,7 @@ public final class SafeHtml {
       return false;
     }
     SafeHtml that = (SafeHtml) other;
-    return this.privateDoNotAccessOrElseSafeHtmlWrappedValue.equals(
-        that.privateDoNotAccessOrElseSafeHtmlWrappedValue);
+    return this.length == that.length && this.getSafeHtmlString().equals(that.getSafeHtmlString());
   }
 
   /**
@@ -81,7 +163,7 @@ public final class SafeHtml {
    */
   @Override
   public String toString() {
-    return "SafeHtml{" + privateDoNotAccessOrElseSafeHtmlWrappedValue + "}";
+    return "SafeHtml{" + getSafeHtmlString() + "}";
   }
 
   /**
@@ -91,6 +173,127 @@ public final class SafeHtml {
   // NOTE(mlourenco): jslayout depends on this exact method name when generating code, be careful if
   // changing it.
   public String getSafeHtmlString() {
-    return privateDoNotAccessOrElseSafeHtmlWrappedValue;
+    String html = privateDoNotAccessOrElseSafeHtmlWrappedValue;
+    if (html != null) {
+      return html;
+    }
+    Object partsOrString = rope.partsOrString;
+    if (partsOrString instanceof String) {
+      return (String) partsOrString;
+    }
+    html = flatten();
+    rope.partsOrString = html;
+    return html;
+  }
+
+  /**
+   * Appends this value's underlying string to {@code out}. The parts of a value built by {@link
+   * SafeHtmls#concat} are appended one by one, without first being copied into a single string.
+   *
+   * @throws IOException if {@code out} throws
+   */
+  public void writeTo(Appendable out) throws IOException {
+    String html = privateDoNotAccessOrElseSafeHtmlWrappedValue;
+    if (html != null) {
+      out.append(html);
+      return;
+    }
+    // Parts are walked with an explicit stack so that deeply nested concatenations can't overflow
+    // the call stack.
+    List<SafeHtml> stack = new ArrayList<>();
+    stack.add(this);
+    while (!stack.isEmpty()) {
+      SafeHtml part = stack.remove(stack.size() - 1);
+      String value = part.privateDoNotAccessOrElseSafeHtmlWrappedValue;
+      Object partsOrString = value == null ? part.rope.partsOrString : value;
+      if (partsOrString instanceof String) {
+        out.append((String) partsOrString);
+      } else {
+        SafeHtml[] children = (SafeHtml[]) partsOrString;
+        for (int i = children.length - 1; i >= 0; i--) {
+          stack.add(children[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes this value's underlying string to {@code out}, encoded with {@code charset}, part by
+   * part as {@link #writeTo(Appendable)} does. UTF-8 is encoded without intermediate {@code byte[]}
+   * copies.
+   *
+   * @throws IOException if {@code out} throws
+   */
+  @GwtIncompatible("java.io.OutputStream")
+  public void writeTo(OutputStream out, Charset charset) throws IOException {
+    byte[] bytes = utf8;
+    if (bytes != null && Utf8HtmlWriter.UTF_8.equals(charset)) {
+      out.write(bytes);
+    } else if (Utf8HtmlWriter.UTF_8.equals(charset)) {
+      Utf8HtmlWriter writer = Utf8HtmlWriter.to(out, length);
+      writeTo(writer);
+      writer.finish();
+    } else {
+      Writer writer = new OutputStreamWriter(out, charset);
+      writeTo(writer);
+      writer.flush();
+    }
+  }
+
+  /** Copies the strings at the leaves of this rope, and of any unflattened ropes under it. */
+  private String flatten() {
+    StringBuilder result = new StringBuilder(length);
+    try {
+      writeTo(result);
+    } catch (IOException e) {
+      // Should never happen, appending to a StringBuilder doesn't do I/O.
+      throw new AssertionError(e);
+    }
+    return result.toString();
+  }
+
+  /**
+   * Returns this value's underlying string encoded as UTF-8. The encoding is computed once and
+   * cached; each call returns a new copy of it.
+   */
+  @GwtIncompatible("java.nio.charset.Charset")
+  public byte[] toUtf8Bytes() {
+    return utf8().clone();
+  }
+
+  /**
+   * Returns a read-only view of this value's underlying string encoded as UTF-8. The encoding is
+   * computed once and cached, so serving the same value repeatedly doesn't encode or copy it again.
+   */
+  @GwtIncompatible("java.nio.ByteBuffer")
+  public ByteBuffer utf8ByteBuffer() {
+    return ByteBuffer.wrap(utf8()).asReadOnlyBuffer();
+  }
+
+  /**
+   * The mutable state of a rope: its parts, in order, until it is flattened, and the flattened
+   * string after that, so that the parts can be garbage collected once they are no longer needed.
+   *
+   * <p>Like {@code String}'s hash, the flattened string is computed at most once per thread and
+   * written without synchronization, since every thread computes the same string. A thread that
+   * still sees the parts flattens them again; one that sees the string sees all of it, since
+   * strings are immutable. The initial parts are published through the final {@link #rope} field.
+   */
+  private static final class Rope {
+    private Object partsOrString;
+
+    Rope(SafeHtml[] children) {
+      this.partsOrString = children;
+    }
+  }
+
+  @GwtIncompatible("java.nio.charset.Charset")
+  private byte[] utf8() {
+    byte[] bytes = utf8;
+    if (bytes == null) {
+      bytes = getSafeHtmlString().getBytes(Utf8HtmlWriter.UTF_8);
+      utf8 = bytes;
+    }
+    return bytes;
   }
 }
@@ -22,22 +22,26 @@
 
 package com.google.common.html.types;
 
-import static com.google.common.html.types.BuilderUtils.coerceToInterchangeValid;
-import static com.google.common.html.types.BuilderUtils.escapeHtmlInternal;
+import static com.google.common.html.types.BuilderUtils.coerceAndEscapeHtml;
+import static com.google.common.html.types.BuilderUtils.coercedAndEscapedHtmlLength;
+import static com.google.common.html.types.BuilderUtils.isValidDataAttributeName;
+import static com.google.common.html.types.BuilderUtils.isValidElementName;
 
 import com.google.common.annotations.GwtCompatible;
+import com.google.common.annotations.GwtIncompatible;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.errorprone.annotations.CheckReturnValue;
 import com.google.errorprone.annotations.CompileTimeConstant;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import javax.annotation.Generated;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
@@ -56,31 +60,65 @@ import javax.annotation.concurrent.NotThreadSafe;
 @GwtCompatible
 @NotThreadSafe
 public final class SafeHtmlBuilder {
-  // Keep these regular expressions compatible across Java and JavaScript native implementations.
-  // They are uncompiled because we couldn't depend on java.util.regex.Pattern or
-  // com.google.gwt.regexp.shared.RegExp
-  private static final String VALID_ELEMENT_NAMES_REGEXP = "[a-z0-9-]+";
-  private static final String VALID_DATA_ATTRIBUTES_REGEXP = "data-[a-zA-Z-]+";
-
   private static final ImmutableSet<String> UNSUPPORTED_ELEMENTS =
       ImmutableSet.of("applet", "base", "embed", "math", "meta", "object", "svg", "template");
 
-  private static final ImmutableSet<String> SCRIPT_ELEMENTS = ImmutableSet.of("script");
+  /**
+   * Elements that setters, content or rendering treat specially, sorted. An element's index here
+   * is its id, and sets of these elements are bitsets of their ids, so that checking an element
+   * against an allowlist doesn't hash its name. Any other element is in none of those sets.
+   */
+  private static final String[] KNOWN_ELEMENTS = {
+    "a", "area", "audio", "br", "button", "col", "form", "hr", "iframe", "img", "input", "link",
+    "param", "script", "source", "style", "textarea", "track", "video", "wbr"
+  };
 
-  private static final ImmutableSet<String> STYLESHEET_ELEMENTS = ImmutableSet.of("style");
+  private static final int LINK_ELEMENT = elements("link");
 
-  private static final ImmutableSet<String> VOID_ELEMENTS =
-      ImmutableSet.of(
+  private static final int SCRIPT_ELEMENTS = elements("script");
+
+  private static final int STYLESHEET_ELEMENTS = elements("style");
+
+  private static final int VOID_ELEMENTS =
+      elements(
           "area", "br", "col", "hr", "img", "input", "link", "param", "source", "track", "wbr");
 
-  private final String elementName;
-  /** We use LinkedHashMap to maintain attribute insertion order. */
-  private final Map<String, String> attributes = new LinkedHashMap<>();
+  private String elementName;
+
+  /** The bit of {@link #elementName} in sets of {@link #KNOWN_ELEMENTS}, or 0 if it's not one. */
+  private int elementBit;
+
+  private static final String[] NO_ATTRIBUTES = new String[0];
+  private static final Object[] NO_CONTENTS = new Object[0];
+
+  /**
+   * Names and values of the attributes set so far, in the order they were first set. Attributes
+   * are few, so they're kept in parallel arrays and looked up by a linear scan rather than hashed.
+   */
+  private String[] attributeNames = NO_ATTRIBUTES;
+
+  private String[] attributeValues = NO_ATTRIBUTES;
+  private int attributeCount;
+
+  /**
+   * The content appended so far: {@link SafeHtml}s, and {@code String}s of text that are escaped
+   * when the element is built, so that they're escaped straight into its output.
+   */
+  private Object[] contents = NO_CONTENTS;
 
-  private final List<String> contents = new ArrayList<>();
+  private int contentCount;
 
   private boolean useSlashOnVoid = false;
 
+  /** The cache set with {@link #useEscapedAttributeValueCache}, if any. */
+  @Nullable private EscapedAttributeValueCache attributeValueCache;
+
+  /**
+   * The attribute values as escaped by the cache in use when the element was last written, with
+   * null for those it didn't cache. Kept between builds so that it is only allocated once.
+   */
+  private String[] escapedAttributeValues = NO_ATTRIBUTES;
+
   private enum AttributeContract {
     SAFE_URL,
     TRUSTED_RESOURCE_URL
@@ -89,6 +127,9 @@ public final class SafeHtmlBuilder {
   /** Contract of the value currently assigned to the {@code href} attribute. */
   private AttributeContract hrefValueContract = AttributeContract.TRUSTED_RESOURCE_URL;
 
+  /** Whether this builder was released to a {@link BuilderPool} and not acquired since. */
+  boolean released;
+
   /**
    * Creates a builder for the given {@code elementName}, which must consist only of lowercase
    * letters, digits and {@code -}.
@@ -108,10 +149,51 @@ public final class SafeHtmlBuilder {
    * @see http://whatwg.org/html/syntax.html#void-elements
    */
   public SafeHtmlBuilder(@CompileTimeConstant final String elementName) {
+    setElementName(elementName);
+  }
+
+  /**
+   * Clears this builder's attributes and content, as well as {@link #useSlashOnVoid()} and {@link
+   * #useEscapedAttributeValueCache}, so that it builds an empty element again. The space already
+   * allocated for attributes and content is kept, so a builder reused for many elements, for
+   * example one per table row, doesn't reallocate it. See {@link BuilderPool} for sharing builders
+   * across requests.
+   */
+  @CanIgnoreReturnValue
+  public SafeHtmlBuilder reset() {
+    // The arrays are kept, but not what they refer to.
+    Arrays.fill(attributeValues, 0, attributeCount, null);
+    Arrays.fill(attributeNames, 0, attributeCount, null);
+    attributeCount = 0;
+    Arrays.fill(contents, 0, contentCount, null);
+    contentCount = 0;
+    useSlashOnVoid = false;
+    attributeValueCache = null;
+    Arrays.fill(escapedAttributeValues, null);
+    hrefValueContract = AttributeContract.TRUSTED_RESOURCE_URL;
+    return this;
+  }
+
+  /**
+   * Like {@link #reset()}, but also changes the element this builder builds to {@code
+   * elementName}, with the same requirements as {@link #SafeHtmlBuilder(String)}.
+   *
+   * @throws IllegalArgumentException if {@code elementName} contains invalid characters or is not
+   *     supported, in which case this builder is left unchanged
+   */
+  @CanIgnoreReturnValue
+  public SafeHtmlBuilder reset(@CompileTimeConstant final String elementName) {
+    setElementName(elementName);
+    return reset();
+  }
+
+  private void setElementName(String elementName) {
     if (elementName == null) {
       throw new NullPointerException();
     }
-    if (!elementName.matches(VALID_ELEMENT_NAMES_REGEXP)) {
+    // Known elements are valid names, so only other names need to be scanned.
+    int id = Arrays.binarySearch(KNOWN_ELEMENTS, elementName);
+    if (id < 0 && !isValidElementName(elementName)) {
       throw new IllegalArgumentException(
           "Invalid element name \""
               + elementName
@@ -122,6 +204,35 @@ public final class SafeHtmlBuilder {
       throw new IllegalArgumentException("Element \"" + elementName + "\" is not supported.");
     }
     this.elementName = elementName;
+    this.elementBit = id >= 0 ? 1 << id : 0;
+  }
+
+  /** Returns the set of the given {@link #KNOWN_ELEMENTS}. */
+  private static int elements(String... names) {
+    int elements = 0;
+    for (String name : names) {
+      int id = Arrays.binarySearch(KNOWN_ELEMENTS, name);
+      if (id < 0) {
+        throw new AssertionError(name);
+      }
+      elements |= 1 << id;
+    }
+    return elements;
+  }
+
+  /** Returns the names in a set of {@link #KNOWN_ELEMENTS}, formatted for error messages. */
+  private static String describeElements(int elements) {
+    StringBuilder sb = new StringBuilder("[");
+    for (int id = 0; id < KNOWN_ELEMENTS.length; id++) {
+      if ((elements & (1 << id)) != 0) {
+        sb.append(sb.length() > 1 ? ", " : "").append(KNOWN_ELEMENTS[id]);
+      }
+    }
+    return sb.append("]").toString();
+  }
+
+  private boolean isOneOf(int elements) {
+    return (elements & elementBit) != 0;
   }
 
   /**
@@ -138,9 +249,20 @@ public final class SafeHtmlBuilder {
     useSlashOnVoid = true;
     return this;
   }
+
+  /**
+   * Causes the builder to take escaped attribute values from {@code cache}, and to add those it
+   * doesn't find there, instead of escaping every value each time the element is written. This
+   * overrides {@link EscapedAttributeValueCache#setDefault}.
+   */
+  @CanIgnoreReturnValue
+  public SafeHtmlBuilder useEscapedAttributeValueCache(EscapedAttributeValueCache cache) {
+    attributeValueCache = Preconditions.checkNotNull(cache);
+    return this;
+  }
   /** These elements are allowlisted to use accept with a String value. */
-  private static final ImmutableSet<String> ACCEPT_STRING_ELEMENT_ALLOWLIST =
-      ImmutableSet.of("input");
+  private static final int ACCEPT_STRING_ELEMENT_ALLOWLIST =
+      elements("input");
 
   /**
    * Sets the {@code accept} attribute for this element.
@@ -156,18 +278,18 @@ public final class SafeHtmlBuilder {
    */
   @CanIgnoreReturnValue
   public SafeHtmlBuilder setAccept(String value) {
-    if (!ACCEPT_STRING_ELEMENT_ALLOWLIST.contains(elementName)) {
+    if (!isOneOf(ACCEPT_STRING_ELEMENT_ALLOWLIST)) {
       throw new IllegalArgumentException(
           "Attribute \"accept\" with a String value can only be used "
               + "by one of the following elements: "
-              + ACCEPT_STRING_ELEMENT_ALLOWLIST);
+              + describeElements(ACCEPT_STRING_ELEMENT_ALLOWLIST));
     }
     return setAttribute("accept", value);
   }
 
   /** These elements are allowlisted to use action with a SafeUrl value. */
-  private static final ImmutableSet<String> ACTION_SAFE_URL_ELEMENT_ALLOWLIST =
-      ImmutableSet.of("form");
+  private static final int ACTION_SAFE_URL_ELEMENT_ALLOWLIST =
+      elements("form");
 
   /**
    * Sets the {@code action} attribute for this element.
@@ -183,11 +305,11 @@ public final class SafeHtmlBuilder {
    */
   @CanIgnoreReturnValue
   public SafeHtmlBuilder setAction(SafeUrl value) {
-    if (!ACTION_SAFE_URL_ELEMENT_ALLOWLIST.contains(elementName)) {
+    if (!isOneOf(ACTION_SAFE_URL_ELEMENT_ALLOWLIST)) {
       throw new IllegalArgumentException(
           "Attribute \"action\" with a SafeUrl value can only be used "
               + "by one of the following elements: "
-              + ACTION_SAFE_URL_ELEMENT_ALLOWLIST);
+              + describeElements(ACTION_SAFE_URL_ELEMENT_ALLOWLIST));
     }
     return setAttribute("action", value.getSafeUrlString());
   }
@@ -595,8 +717,8 @@ public final class SafeHtmlBuilder {
   }
 
   /** These elements are allowlisted to use defer with a String value. */
-  private static final ImmutableSet<String> DEFER_STRING_ELEMENT_ALLOWLIST =
-      ImmutableSet.of("script");
+  private static final int DEFER_STRING_ELEMENT_ALLOWLIST =
+      elements("script");
 
   /**
    * Sets the {@code defer} attribute for this element.
@@ -612,11 +734,11 @@ public final class SafeHtmlBuilder {
    */
   @CanIgnoreReturnValue
   public SafeHtmlBuilder setDefer(String value) {
-    if (!DEFER_STRING_ELEMENT_ALLOWLIST.contains(elementName)) {
+    if (!isOneOf(DEFER_STRING_ELEMENT_ALLOWLIST)) {
       throw new IllegalArgumentException(
           "Attribute \"defer\" with a String value can only be used "
               + "by one of the following elements: "
-              + DEFER_STRING_ELEMENT_ALLOWLIST);
+              + describeElements(DEFER_STRING_ELEMENT_ALLOWLIST));
     }
     return setAttribute("defer", value);
   }
@@ -700,8 +822,8 @@ public final class SafeHtmlBuilder {
   }
 
   /** These elements are allowlisted to use formaction with a SafeUrl value. */
-  private static final ImmutableSet<String> FORMACTION_SAFE_URL_ELEMENT_ALLOWLIST =
-      ImmutableSet.of("button", "input");
+  private static final int FORMACTION_SAFE_URL_ELEMENT_ALLOWLIST =
+      elements("button", "input");
 
   /**
    * Sets the {@code formaction} attribute for this element.
@@ -718,11 +840,11 @@ public final class SafeHtmlBuilder {
    */
   @CanIgnoreReturnValue
   public SafeHtmlBuilder setFormaction(SafeUrl value) {
-    if (!FORMACTION_SAFE_URL_ELEMENT_ALLOWLIST.contains(elementName)) {
+    if (!isOneOf(FORMACTION_SAFE_URL_ELEMENT_ALLOWLIST)) {
       throw new IllegalArgumentException(
           "Attribute \"formaction\" with a SafeUrl value can only be used "
               + "by one of the following elements: "
-              + FORMACTION_SAFE_URL_ELEMENT_ALLOWLIST);
+              + describeElements(FORMACTION_SAFE_URL_ELEMENT_ALLOWLIST));
     }
     return setAttribute("formaction", value.getSafeUrlString());
   }
@@ -734,8 +856,8 @@ public final class SafeHtmlBuilder {
   }
 
   /** These elements are allowlisted to use formmethod with a String value. */
-  private static final ImmutableSet<String> FORMMETHOD_STRING_ELEMENT_ALLOWLIST =
-      ImmutableSet.of("button", "input");
+  private static final int FORMMETHOD_STRING_ELEMENT_ALLOWLIST =
+      elements("button", "input");
 
   /**
    * Sets the {@code formmethod} attribute for this element.
@@ -752,11 +874,11 @@ public final class SafeHtmlBuilder {
    */
   @CanIgnoreReturnValue
   public SafeHtmlBuilder setFormmethod(String value) {
-    if (!FORMMETHOD_STRING_ELEMENT_ALLOWLIST.contains(elementName)) {
+    if (!isOneOf(FORMMETHOD_STRING_ELEMENT_ALLOWLIST)) {
       throw new IllegalArgumentException(
           "Attribute \"formmethod\" with a String value can only be used "
               + "by one of the following elements: "
-              + FORMMETHOD_STRING_ELEMENT_ALLOWLIST);
+              + describeElements(FORMMETHOD_STRING_ELEMENT_ALLOWLIST));
     }
     return setAttribute("formmethod", value);
   }
@@ -780,8 +902,8 @@ public final class SafeHtmlBuilder {
   }
 
   /** These elements are allowlisted to use href with a SafeUrl value. */
-  private static final ImmutableSet<String> HREF_SAFE_URL_ELEMENT_ALLOWLIST =
-      ImmutableSet.of("a", "area");
+  private static final int HREF_SAFE_URL_ELEMENT_ALLOWLIST =
+      elements("a", "area");
   /**
    * On {@code link} elements, the {@code href} attribute may be set to {@code SafeUrl} values only
    * for these values of the {@code rel} attribute.
@@ -847,14 +969,14 @@ public final class SafeHtmlBuilder {
    */
   @CanIgnoreReturnValue
   public SafeHtmlBuilder setHref(SafeUrl value) {
-    if (!HREF_SAFE_URL_ELEMENT_ALLOWLIST.contains(elementName) && !elementName.equals("link")) {
+    if (!isOneOf(HREF_SAFE_URL_ELEMENT_ALLOWLIST) && !isOneOf(LINK_ELEMENT)) {
       throw new IllegalArgumentException(
           "Attribute \"href\" with a SafeUrl value can only be used "
               + "by one of the following elements: "
-              + HREF_SAFE_URL_ELEMENT_ALLOWLIST);
+              + describeElements(HREF_SAFE_URL_ELEMENT_ALLOWLIST));
     }
-    if (elementName.equals("link")) {
-      checkLinkDependentAttributes(attributes.get("rel"), AttributeContract.SAFE_URL);
+    if (isOneOf(LINK_ELEMENT)) {
+      checkLinkDependentAttributes(getAttribute("rel"), AttributeContract.SAFE_URL);
     }
     hrefValueContract = AttributeContract.SAFE_URL;
     return setAttribute("href", value.getSafeUrlString());
@@ -1012,8 +1134,8 @@ public final class SafeHtmlBuilder {
   }
 
   /** These elements are allowlisted to use method with a String value. */
-  private static final ImmutableSet<String> METHOD_STRING_ELEMENT_ALLOWLIST =
-      ImmutableSet.of("form");
+  private static final int METHOD_STRING_ELEMENT_ALLOWLIST =
+      elements("form");
 
   /**
    * Sets the {@code method} attribute for this element.
@@ -1029,11 +1151,11 @@ public final class SafeHtmlBuilder {
    */
   @CanIgnoreReturnValue
   public SafeHtmlBuilder setMethod(String value) {
-    if (!METHOD_STRING_ELEMENT_ALLOWLIST.contains(elementName)) {
+    if (!isOneOf(METHOD_STRING_ELEMENT_ALLOWLIST)) {
       throw new IllegalArgumentException(
           "Attribute \"method\" with a String value can only be used "
               + "by one of the following elements: "
-              + METHOD_STRING_ELEMENT_ALLOWLIST);
+              + describeElements(METHOD_STRING_ELEMENT_ALLOWLIST));
     }
     return setAttribute("method", value);
   }
@@ -1095,8 +1217,8 @@ public final class SafeHtmlBuilder {
   }
 
   /** These elements are allowlisted to use pattern with a String value. */
-  private static final ImmutableSet<String> PATTERN_STRING_ELEMENT_ALLOWLIST =
-      ImmutableSet.of("input");
+  private static final int PATTERN_STRING_ELEMENT_ALLOWLIST =
+      elements("input");
 
   /**
    * Sets the {@code pattern} attribute for this element.
@@ -1112,11 +1234,11 @@ public final class SafeHtmlBuilder {
    */
   @CanIgnoreReturnValue
   public SafeHtmlBuilder setPattern(String value) {
-    if (!PATTERN_STRING_ELEMENT_ALLOWLIST.contains(elementName)) {
+    if (!isOneOf(PATTERN_STRING_ELEMENT_ALLOWLIST)) {
       throw new IllegalArgumentException(
           "Attribute \"pattern\" with a String value can only be used "
               + "by one of the following elements: "
-              + PATTERN_STRING_ELEMENT_ALLOWLIST);
+              + describeElements(PATTERN_STRING_ELEMENT_ALLOWLIST));
     }
     return setAttribute("pattern", value);
   }
@@ -1140,8 +1262,8 @@ public final class SafeHtmlBuilder {
   }
 
   /** These elements are allowlisted to use readonly with a String value. */
-  private static final ImmutableSet<String> READONLY_STRING_ELEMENT_ALLOWLIST =
-      ImmutableSet.of("input", "textarea");
+  private static final int READONLY_STRING_ELEMENT_ALLOWLIST =
+      elements("input", "textarea");
 
   /**
    * Sets the {@code readonly} attribute for this element.
@@ -1158,11 +1280,11 @@ public final class SafeHtmlBuilder {
    */
   @CanIgnoreReturnValue
   public SafeHtmlBuilder setReadonly(String value) {
-    if (!READONLY_STRING_ELEMENT_ALLOWLIST.contains(elementName)) {
+    if (!isOneOf(READONLY_STRING_ELEMENT_ALLOWLIST)) {
       throw new IllegalArgumentException(
           "Attribute \"readonly\" with a String value can only be used "
               + "by one of the following elements: "
-              + READONLY_STRING_ELEMENT_ALLOWLIST);
+              + describeElements(READONLY_STRING_ELEMENT_ALLOWLIST));
     }
     return setAttribute("readonly", value);
   }
@@ -1178,7 +1300,7 @@ public final class SafeHtmlBuilder {
    */
   @CanIgnoreReturnValue
   public SafeHtmlBuilder setRel(String value) {
-    if (elementName.equals("link")) {
+    if (isOneOf(LINK_ELEMENT)) {
       checkLinkDependentAttributes(value, hrefValueContract);
     }
     return setAttribute("rel", value);
@@ -1257,8 +1379,8 @@ public final class SafeHtmlBuilder {
   }
 
   /** These elements are allowlisted to use src with a SafeUrl value. */
-  private static final ImmutableSet<String> SRC_SAFE_URL_ELEMENT_ALLOWLIST =
-      ImmutableSet.of("audio", "img", "input", "source", "video");
+  private static final int SRC_SAFE_URL_ELEMENT_ALLOWLIST =
+      elements("audio", "img", "input", "source", "video");
 
   /**
    * Sets the {@code src} attribute for this element.
@@ -1278,11 +1400,11 @@ public final class SafeHtmlBuilder {
    */
   @CanIgnoreReturnValue
   public SafeHtmlBuilder setSrc(SafeUrl value) {
-    if (!SRC_SAFE_URL_ELEMENT_ALLOWLIST.contains(elementName)) {
+    if (!isOneOf(SRC_SAFE_URL_ELEMENT_ALLOWLIST)) {
       throw new IllegalArgumentException(
           "Attribute \"src\" with a SafeUrl value can only be used "
               + "by one of the following elements: "
-              + SRC_SAFE_URL_ELEMENT_ALLOWLIST);
+              + describeElements(SRC_SAFE_URL_ELEMENT_ALLOWLIST));
     }
     return setAttribute("src", value.getSafeUrlString());
   }
@@ -1294,8 +1416,8 @@ public final class SafeHtmlBuilder {
   }
 
   /** These elements are allowlisted to use srcdoc with a SafeHtml value. */
-  private static final ImmutableSet<String> SRCDOC_SAFE_HTML_ELEMENT_ALLOWLIST =
-      ImmutableSet.of("iframe");
+  private static final int SRCDOC_SAFE_HTML_ELEMENT_ALLOWLIST =
+      elements("iframe");
 
   /**
    * Sets the {@code srcdoc} attribute for this element.
@@ -1311,11 +1433,11 @@ public final class SafeHtmlBuilder {
    */
   @CanIgnoreReturnValue
   public SafeHtmlBuilder setSrcdoc(SafeHtml value) {
-    if (!SRCDOC_SAFE_HTML_ELEMENT_ALLOWLIST.contains(elementName)) {
+    if (!isOneOf(SRCDOC_SAFE_HTML_ELEMENT_ALLOWLIST)) {
       throw new IllegalArgumentException(
           "Attribute \"srcdoc\" with a SafeHtml value can only be used "
               + "by one of the following elements: "
-              + SRCDOC_SAFE_HTML_ELEMENT_ALLOWLIST);
+              + describeElements(SRCDOC_SAFE_HTML_ELEMENT_ALLOWLIST));
     }
     return setAttribute("srcdoc", value.getSafeHtmlString());
   }
@@ -1429,7 +1551,7 @@ public final class SafeHtmlBuilder {
    */
   @CanIgnoreReturnValue
   public SafeHtmlBuilder setDataAttribute(@CompileTimeConstant final String name, String value) {
-    if (!name.matches(VALID_DATA_ATTRIBUTES_REGEXP)) {
+    if (!isValidDataAttributeName(name)) {
       throw new IllegalArgumentException(
           "Invalid data attribute name \""
               + name
@@ -1473,7 +1595,7 @@ public final class SafeHtmlBuilder {
   public SafeHtmlBuilder appendContent(Iterator<SafeHtml> htmls) {
     checkSafeHtmlElement();
     while (htmls.hasNext()) {
-      contents.add(htmls.next().getSafeHtmlString());
+      addContent(Preconditions.checkNotNull(htmls.next()));
     }
     return this;
   }
@@ -1487,7 +1609,7 @@ public final class SafeHtmlBuilder {
   @CanIgnoreReturnValue
   public SafeHtmlBuilder appendScriptContent(SafeScript script) {
     checkSafeScriptElement();
-    contents.add(script.getSafeScriptString());
+    addContent(SafeHtmls.create(script.getSafeScriptString()));
     return this;
   }
 
@@ -1499,7 +1621,7 @@ public final class SafeHtmlBuilder {
   @CanIgnoreReturnValue
   public SafeHtmlBuilder appendStyleContent(SafeStyleSheet style) {
     checkSafeStyleSheetElement();
-    contents.add(style.getSafeStyleSheetString());
+    addContent(SafeHtmls.create(style.getSafeStyleSheetString()));
     return this;
   }
 
@@ -1523,30 +1645,51 @@ public final class SafeHtmlBuilder {
   }
 
   private void checkSafeHtmlElement() {
-    checkNotVoidElement();
+    checkSafeHtmlElement(elementName, elementBit);
+  }
+
+  private void checkSafeScriptElement() {
+    checkSafeScriptElement(elementName, elementBit);
+  }
+
+  private void checkSafeStyleSheetElement() {
+    checkSafeStyleSheetElement(elementName, elementBit);
+  }
+
+  private void checkNotVoidElement() {
+    checkNotVoidElement(elementName, elementBit);
+  }
+
+  /**
+   * Checks that the element {@code elementName}, whose bit in sets of {@link #KNOWN_ELEMENTS} is
+   * {@code elementBit}, may contain SafeHtml or text. The element-based checks are static so that
+   * {@link SafeHtmlWriter} can apply them to elements it has already written the start tag of.
+   */
+  static void checkSafeHtmlElement(String elementName, int elementBit) {
+    checkNotVoidElement(elementName, elementBit);
     Preconditions.checkState(
-        !SCRIPT_ELEMENTS.contains(elementName),
+        (SCRIPT_ELEMENTS & elementBit) == 0,
         "Element \"" + elementName + "\" requires SafeScript contents, not SafeHTML or text.");
     Preconditions.checkState(
-        !STYLESHEET_ELEMENTS.contains(elementName),
+        (STYLESHEET_ELEMENTS & elementBit) == 0,
         "Element \"" + elementName + "\" requires SafeStyleSheet contents, not SafeHTML or text.");
   }
 
-  private void checkSafeScriptElement() {
+  static void checkSafeScriptElement(String elementName, int elementBit) {
     Preconditions.checkState(
-        SCRIPT_ELEMENTS.contains(elementName),
+        (SCRIPT_ELEMENTS & elementBit) != 0,
         "Element \"" + elementName + "\" must not contain SafeScript.");
   }
 
-  private void checkSafeStyleSheetElement() {
+  static void checkSafeStyleSheetElement(String elementName, int elementBit) {
     Preconditions.checkState(
-        STYLESHEET_ELEMENTS.contains(elementName),
+        (STYLESHEET_ELEMENTS & elementBit) != 0,
         "Element \"" + elementName + "\" must not contain SafeStyleSheet.");
   }
 
-  private void checkNotVoidElement() {
+  private static void checkNotVoidElement(String elementName, int elementBit) {
     Preconditions.checkState(
-        !VOID_ELEMENTS.contains(elementName),
+        (VOID_ELEMENTS & elementBit) == 0,
         "Element \"" + elementName + "\" is a void element and so cannot have content.");
   }
 
@@ -1557,28 +1700,267 @@ public final class SafeHtmlBuilder {
    */
   @CanIgnoreReturnValue
   public SafeHtmlBuilder escapeAndAppendContent(String text) {
-    // htmlEscape() already unicode-coerces.
-    return appendContent(SafeHtmls.htmlEscape(text));
+    checkSafeHtmlElement();
+    // Escaped, and coerced to interchange-valid Unicode, when the element is built.
+    addContent(Preconditions.checkNotNull(text));
+    return this;
   }
 
   public SafeHtml build() {
-    StringBuilder sb = new StringBuilder("<" + elementName);
-    for (Map.Entry<String, String> entry : attributes.entrySet()) {
-      sb.append(" " + entry.getKey() + "=\"" + escapeHtmlInternal(entry.getValue()) + "\"");
+    boolean isVoid = isOneOf(VOID_ELEMENTS);
+    String[] escapedValues = escapeAttributeValues();
+    int startTagLength = startTagLength(isVoid, escapedValues);
+    int length = startTagLength;
+    if (!isVoid) {
+      length += endTagLength();
+      // Only whether the element is short matters past here, so long contents aren't all measured.
+      for (int i = 0; i < contentCount && length < SafeHtml.MIN_ROPE_LENGTH; i++) {
+        length += contentLength(contents[i]);
+      }
     }
 
-    boolean isVoid = VOID_ELEMENTS.contains(elementName);
+    try {
+      if (isVoid || length < SafeHtml.MIN_ROPE_LENGTH) {
+        // The element is written straight into a buffer of exactly its length.
+        StringBuilder sb = new StringBuilder(length);
+        buildTo(sb, isVoid, escapedValues);
+        return SafeHtmls.create(sb.toString());
+      }
+      // Contents are linked to rather than copied, so that they can be written out piece by piece.
+      StringBuilder startTag = new StringBuilder(startTagLength);
+      appendStartTag(startTag, isVoid, escapedValues);
+      StringBuilder endTag = new StringBuilder(endTagLength());
+      appendEndTag(endTag);
+      List<SafeHtml> htmls = new ArrayList<>(contentCount + 2);
+      htmls.add(SafeHtmls.create(startTag.toString()));
+      for (int i = 0; i < contentCount; i++) {
+        htmls.add(toSafeHtml(contents[i]));
+      }
+      htmls.add(SafeHtmls.create(endTag.toString()));
+      return SafeHtmls.concat(htmls);
+    } catch (IOException e) {
+      // Should never happen, appending to a StringBuilder doesn't do I/O.
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Appends the element {@link #build()} would return to {@code out}, without creating it first.
+   * Attribute values and text are escaped straight into {@code out}, and HTML contents are appended
+   * with {@link SafeHtml#writeTo(Appendable)}.
+   *
+   * @throws IOException if {@code out} throws
+   */
+  public void buildTo(Appendable out) throws IOException {
+    buildTo(out, isOneOf(VOID_ELEMENTS), escapeAttributeValues());
+  }
+
+  private void buildTo(Appendable out, boolean isVoid, @Nullable String[] escapedValues)
+      throws IOException {
+    appendStartTag(out, isVoid, escapedValues);
+    if (!isVoid) {
+      appendContents(out);
+      appendEndTag(out);
+    }
+  }
+
+  /**
+   * Writes the element {@link #build()} would return, encoded as UTF-8, to {@code out} starting at
+   * its position. Attribute values are escaped and encoded in a single pass.
+   *
+   * @throws java.nio.BufferOverflowException if {@code out} doesn't have enough room, in which case
+   *     its position is left unchanged
+   */
+  @GwtIncompatible("java.nio.ByteBuffer")
+  public void buildToUtf8(ByteBuffer out) {
+    try {
+      writeUtf8(Utf8HtmlWriter.to(out));
+    } catch (IOException e) {
+      // Should never happen, writing to a ByteBuffer doesn't do I/O.
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Writes the element {@link #build()} would return, encoded as UTF-8, to {@code out}. Attribute
+   * values are escaped and encoded in a single pass.
+   *
+   * @throws IOException if {@code out} throws
+   */
+  @GwtIncompatible("java.io.OutputStream")
+  public void buildToUtf8(OutputStream out) throws IOException {
+    writeUtf8(Utf8HtmlWriter.to(out));
+  }
+
+  @GwtIncompatible("Utf8HtmlWriter")
+  private void writeUtf8(Utf8HtmlWriter out) throws IOException {
+    String[] escapedValues = escapeAttributeValues();
+    out.write("<").write(elementName);
+    for (int i = 0; i < attributeCount; i++) {
+      out.write(" ").write(attributeNames[i]).write("=\"");
+      if (escapedValues != null && escapedValues[i] != null) {
+        out.write(escapedValues[i]);
+      } else {
+        out.writeEscaped(attributeValues[i]);
+      }
+      out.write("\"");
+    }
+
+    boolean isVoid = isOneOf(VOID_ELEMENTS);
+    if (isVoid && useSlashOnVoid) {
+      out.write("/");
+    }
+    out.write(">");
+    if (!isVoid) {
+      for (int i = 0; i < contentCount; i++) {
+        Object content = contents[i];
+        if (content instanceof SafeHtml) {
+          ((SafeHtml) content).writeTo(out);
+        } else {
+          out.writeEscaped((String) content);
+        }
+      }
+      out.write("</").write(elementName).write(">");
+    }
+    out.finish();
+  }
+
+  /**
+   * Returns the attribute values escaped by the cache in use, with null for those it doesn't
+   * cache, or null if no cache is in use.
+   */
+  @Nullable
+  private String[] escapeAttributeValues() {
+    EscapedAttributeValueCache cache =
+        attributeValueCache != null ? attributeValueCache : EscapedAttributeValueCache.getDefault();
+    if (cache == null || attributeCount == 0) {
+      return null;
+    }
+    if (escapedAttributeValues.length < attributeCount) {
+      escapedAttributeValues = new String[attributeNames.length];
+    }
+    for (int i = 0; i < attributeCount; i++) {
+      escapedAttributeValues[i] = cache.escape(attributeValues[i]);
+    }
+    return escapedAttributeValues;
+  }
+
+  /** Returns the length of the start tag {@link #appendStartTag} appends. */
+  private int startTagLength(boolean isVoid, @Nullable String[] escapedValues) {
+    int length = elementName.length() + 2;
+    for (int i = 0; i < attributeCount; i++) {
+      String escaped = escapedValues != null ? escapedValues[i] : null;
+      int valueLength =
+          escaped != null ? escaped.length() : coercedAndEscapedHtmlLength(attributeValues[i]);
+      length += attributeNames[i].length() + valueLength + 4;
+    }
+    if (isVoid && useSlashOnVoid) {
+      length++;
+    }
+    return length;
+  }
+
+  /**
+   * Appends the start tag to {@code out}, taking attribute values from {@code escapedValues} where
+   * it has them.
+   */
+  private void appendStartTag(Appendable out, boolean isVoid, @Nullable String[] escapedValues)
+      throws IOException {
+    out.append('<').append(elementName);
+    for (int i = 0; i < attributeCount; i++) {
+      String value = attributeValues[i];
+      String escaped = escapedValues != null ? escapedValues[i] : null;
+      out.append(' ').append(attributeNames[i]).append("=\"");
+      if (escaped != null) {
+        out.append(escaped);
+      } else {
+        coerceAndEscapeHtml(value, 0, value.length(), out);
+      }
+      out.append('"');
+    }
     if (isVoid && useSlashOnVoid) {
-      sb.append("/");
+      out.append('/');
+    }
+    out.append('>');
+  }
+
+  /**
+   * Appends the start tag and the content appended so far of the element {@link #build()} would
+   * return to {@code out}, leaving it open for {@link SafeHtmlWriter} to append more content and
+   * the end tag. Returns whether the element is a void element, which is complete right away.
+   */
+  boolean openTo(Appendable out) throws IOException {
+    boolean isVoid = isOneOf(VOID_ELEMENTS);
+    appendStartTag(out, isVoid, escapeAttributeValues());
+    appendContents(out);
+    return isVoid;
+  }
+
+  private void appendContents(Appendable out) throws IOException {
+    for (int i = 0; i < contentCount; i++) {
+      Object content = contents[i];
+      if (content instanceof SafeHtml) {
+        ((SafeHtml) content).writeTo(out);
+      } else {
+        String text = (String) content;
+        coerceAndEscapeHtml(text, 0, text.length(), out);
+      }
     }
-    sb.append(">");
+  }
+
+  private static int contentLength(Object content) {
+    return content instanceof SafeHtml
+        ? ((SafeHtml) content).length()
+        : coercedAndEscapedHtmlLength((String) content);
+  }
+
+  private static SafeHtml toSafeHtml(Object content) {
+    return content instanceof SafeHtml
+        ? (SafeHtml) content
+        : SafeHtmls.htmlEscape((String) content);
+  }
+
+  int getElementBit() {
+    return elementBit;
+  }
+
+  private int endTagLength() {
+    return elementName.length() + 3;
+  }
+
+  private void appendEndTag(Appendable out) throws IOException {
+    appendEndTag(elementName, out);
+  }
+
+  static void appendEndTag(String elementName, Appendable out) throws IOException {
+    out.append("</").append(elementName).append('>');
+  }
+
+  String getElementName() {
+    return elementName;
+  }
+
+  /** Gives the parts of the element {@link #build()} would return to {@code out}, in order. */
+  @GwtIncompatible("SafeHtmlTemplate")
+  void compileTo(SafeHtmlTemplate.Compiler out) {
+    out.markup("<" + elementName);
+    for (int i = 0; i < attributeCount; i++) {
+      out.markup(" " + attributeNames[i] + "=\"");
+      out.attributeValue(attributeNames[i], attributeValues[i]);
+      out.markup("\"");
+    }
+
+    boolean isVoid = isOneOf(VOID_ELEMENTS);
+    if (isVoid && useSlashOnVoid) {
+      out.markup("/");
+    }
+    out.markup(">");
     if (!isVoid) {
-      for (String content : contents) {
-        sb.append(content);
+      for (int i = 0; i < contentCount; i++) {
+        out.content(toSafeHtml(contents[i]));
       }
-      sb.append("</" + elementName + ">");
+      out.markup("</" + elementName + ">");
     }
-    return SafeHtmls.create(sb.toString());
   }
 
   @CanIgnoreReturnValue
@@ -1586,7 +1968,41 @@ public final class SafeHtmlBuilder {
     if (value == null) {
       throw new NullPointerException("setAttribute requires a non-null value.");
     }
-    attributes.put(name, coerceToInterchangeValid(value));
+    // Values are coerced to interchange-valid Unicode when escaped by build(), so that each value
+    // is only walked once.
+    for (int i = 0; i < attributeCount; i++) {
+      if (attributeNames[i].equals(name)) {
+        // Like a LinkedHashMap, setting an attribute again keeps its original position.
+        attributeValues[i] = value;
+        return this;
+      }
+    }
+    if (attributeCount == attributeNames.length) {
+      int capacity = Math.max(4, attributeCount * 2);
+      attributeNames = Arrays.copyOf(attributeNames, capacity);
+      attributeValues = Arrays.copyOf(attributeValues, capacity);
+    }
+    attributeNames[attributeCount] = name;
+    attributeValues[attributeCount] = value;
+    attributeCount++;
     return this;
   }
+
+  @Nullable
+  private String getAttribute(String name) {
+    for (int i = 0; i < attributeCount; i++) {
+      if (attributeNames[i].equals(name)) {
+        return attributeValues[i];
+      }
+    }
+    return null;
+  }
+
+  /** Appends {@code content}, a {@link SafeHtml} or a {@code String} of text to escape. */
+  private void addContent(Object content) {
+    if (contentCount == contents.length) {
+      contents = Arrays.copyOf(contents, Math.max(4, contentCount * 2));
+    }
+    contents[contentCount++] = content;
+  }
 }
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import static com.google.common.html.types.BuilderUtils.coerceAndEscapeHtml;
+
+import com.google.common.annotations.GwtCompatible;
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.errorprone.annotations.CheckReturnValue;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Renders table rows, one per element of a sequence, from a fixed schema of columns.
+ *
+ * <p>The row element and each column's cell element are given as {@link SafeHtmlBuilder}s, which
+ * check their attributes as usual. Their markup is computed once, when the renderer is built, and
+ * the markup between one cell's content and the next is kept as a single string. Rendering a row
+ * then only writes those strings and each cell's content straight to the output: text is escaped
+ * into it and {@link SafeHtml} is written with {@link SafeHtml#writeTo(Appendable)}, without
+ * creating a builder or a {@code SafeHtml} per cell.
+ *
+ * <pre>{@code
+ * SafeHtmlTableRenderer<User> renderer =
+ *     new SafeHtmlTableRenderer.Builder<User>(new SafeHtmlBuilder("tr"))
+ *         .addTextColumn(
+ *             new SafeHtmlBuilder("td").setClass("name"),
+ *             new Function<User, String>() {
+ *               @Override
+ *               public String apply(User user) {
+ *                 return user.getName();
+ *               }
+ *             })
+ *         .addHtmlColumn(
+ *             new SafeHtmlBuilder("td"),
+ *             new Function<User, SafeHtml>() {
+ *               @Override
+ *               public SafeHtml apply(User user) {
+ *                 return user.getProfileLink();
+ *               }
+ *             })
+ *         .build();
+ * renderer.renderTo(users, out);
+ * }</pre>
+ *
+ * <p>Everything appended to the output is contract-compliant HTML, so rendering can target sinks
+ * that must only receive {@link SafeHtml}.
+ *
+ * @param <R> the type of the rows' data
+ */
+@CheckReturnValue
+@GwtCompatible
+@ThreadSafe
+public final class SafeHtmlTableRenderer<R> {
+
+  /** Rows rendered by each task when rendering in parallel. */
+  private static final int ROWS_PER_BATCH = 128;
+
+  /**
+   * The markup before the first cell's content, between each cell's content and the next, and
+   * after the last cell's content. There is one more of these than there are columns.
+   */
+  private final String[] segments;
+
+  private final Column<? super R>[] columns;
+
+  private SafeHtmlTableRenderer(String[] segments, Column<? super R>[] columns) {
+    this.segments = segments;
+    this.columns = columns;
+  }
+
+  /**
+   * Returns the rows for {@code rows}, concatenated.
+   *
+   * @throws NullPointerException if a column's function returns null
+   */
+  public SafeHtml render(Iterable<? extends R> rows) {
+    StringBuilder sb = new StringBuilder();
+    try {
+      renderTo(rows.iterator(), sb);
+    } catch (IOException e) {
+      // Should never happen, appending to a StringBuilder doesn't do I/O.
+      throw new AssertionError(e);
+    }
+    return SafeHtmls.create(sb.toString());
+  }
+
+  /**
+   * Appends the rows for {@code rows} to {@code out}, in order.
+   *
+   * @throws IOException if {@code out} throws
+   * @throws NullPointerException if a column's function returns null
+   */
+  public void renderTo(Iterable<? extends R> rows, Appendable out) throws IOException {
+    renderTo(rows.iterator(), out);
+  }
+
+  /**
+   * Appends the rows for the remaining elements of {@code rows} to {@code out}, in order. Each row
+   * is written as soon as it is taken from {@code rows}, so rows can be streamed from a source
+   * larger than memory.
+   *
+   * @throws IOException if {@code out} throws
+   * @throws NullPointerException if a column's function returns null
+   */
+  public void renderTo(Iterator<? extends R> rows, Appendable out) throws IOException {
+    while (rows.hasNext()) {
+      renderRowTo(rows.next(), out);
+    }
+  }
+
+  /**
+   * Appends the rows for the remaining elements of {@code rows} to {@code out}, in order, rendering
+   * batches of rows on {@code executor}. Rows are taken from {@code rows} and written to {@code
+   * out} on the calling thread, which keeps up to {@code parallelism} batches in flight, so only
+   * those batches' output is held in memory at a time. The columns' functions must be safe to call
+   * from several threads at once.
+   *
+   * @throws IOException if {@code out} throws
+   * @throws NullPointerException if a column's function returns null
+   * @throws RuntimeException whatever else a column's function throws, after which the rest of
+   *     the rows are not written
+   */
+  @GwtIncompatible("java.util.concurrent.FutureTask")
+  public void renderTo(
+      Iterator<? extends R> rows, Appendable out, Executor executor, int parallelism)
+      throws IOException {
+    Preconditions.checkArgument(parallelism > 0, "parallelism must be positive: %s", parallelism);
+    ArrayDeque<Future<StringBuilder>> pending = new ArrayDeque<>(parallelism);
+    try {
+      while (rows.hasNext()) {
+        if (pending.size() == parallelism) {
+          out.append(getUnchecked(pending.removeFirst()));
+        }
+        final List<R> batch = new ArrayList<>(ROWS_PER_BATCH);
+        while (batch.size() < ROWS_PER_BATCH && rows.hasNext()) {
+          batch.add(rows.next());
+        }
+        FutureTask<StringBuilder> task =
+            new FutureTask<>(
+                new Callable<StringBuilder>() {
+                  @Override
+                  public StringBuilder call() throws IOException {
+                    StringBuilder sb = new StringBuilder();
+                    renderTo(batch.iterator(), sb);
+                    return sb;
+                  }
+                });
+        pending.addLast(task);
+        executor.execute(task);
+      }
+      while (!pending.isEmpty()) {
+        out.append(getUnchecked(pending.removeFirst()));
+      }
+    } finally {
+      for (Future<StringBuilder> task : pending) {
+        task.cancel(false);
+      }
+    }
+  }
+
+  private void renderRowTo(R row, Appendable out) throws IOException {
+    out.append(segments[0]);
+    for (int i = 0; i < columns.length; i++) {
+      columns[i].appendCellContent(row, out);
+      out.append(segments[i + 1]);
+    }
+  }
+
+  @GwtIncompatible("java.util.concurrent.Future")
+  private static StringBuilder getUnchecked(Future<StringBuilder> task) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return task.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Builder for {@link SafeHtmlTableRenderer}s. Each {@link SafeHtmlBuilder} given to it is only
+   * read when it is given, so later changes to it don't affect the renderer.
+   *
+   * @param <R> the type of the rows' data
+   */
+  @NotThreadSafe
+  public static final class Builder<R> {
+    private final List<String> segments = new ArrayList<>();
+    private final List<Column<? super R>> columns = new ArrayList<>();
+    private final String rowEndTag;
+    private final StringBuilder segment = new StringBuilder();
+
+    /**
+     * Creates a builder for rows that are the element {@code row} would {@link
+     * SafeHtmlBuilder#build() build}, with the cells appended to its content.
+     *
+     * @throws IllegalStateException if {@code row} represents an element that doesn't contain HTML
+     */
+    public Builder(SafeHtmlBuilder row) {
+      rowEndTag = open(row, segment);
+    }
+
+    /**
+     * Adds a column whose cells are the element {@code cell} would {@link SafeHtmlBuilder#build()
+     * build}, with the HTML-escaped result of {@code text} for the row appended to its content.
+     *
+     * @throws IllegalStateException if {@code cell} represents an element that doesn't contain
+     *     text
+     */
+    @CanIgnoreReturnValue
+    public Builder<R> addTextColumn(SafeHtmlBuilder cell, Function<? super R, String> text) {
+      return addColumn(cell, new Column<R>(Preconditions.checkNotNull(text), true));
+    }
+
+    /**
+     * Adds a column whose cells are the element {@code cell} would {@link SafeHtmlBuilder#build()
+     * build}, with the result of {@code html} for the row appended to its content.
+     *
+     * @throws IllegalStateException if {@code cell} represents an element that doesn't contain HTML
+     */
+    @CanIgnoreReturnValue
+    public Builder<R> addHtmlColumn(SafeHtmlBuilder cell, Function<? super R, SafeHtml> html) {
+      return addColumn(cell, new Column<R>(Preconditions.checkNotNull(html), false));
+    }
+
+    private Builder<R> addColumn(SafeHtmlBuilder cell, Column<R> column) {
+      String endTag = open(cell, segment);
+      segments.add(segment.toString());
+      segment.setLength(0);
+      segment.append(endTag);
+      columns.add(column);
+      return this;
+    }
+
+    public SafeHtmlTableRenderer<R> build() {
+      String[] allSegments = segments.toArray(new String[segments.size() + 1]);
+      allSegments[segments.size()] = segment.toString() + rowEndTag;
+      @SuppressWarnings({"unchecked", "rawtypes"}) // Only ever holds Column<? super R>.
+      Column<? super R>[] allColumns = columns.toArray(new Column[columns.size()]);
+      return new SafeHtmlTableRenderer<R>(allSegments, allColumns);
+    }
+
+    /**
+     * Appends the start tag and content of {@code element} to {@code out}, and returns its end
+     * tag.
+     */
+    private static String open(SafeHtmlBuilder element, StringBuilder out) {
+      SafeHtmlBuilder.checkSafeHtmlElement(element.getElementName(), element.getElementBit());
+      StringBuilder endTag = new StringBuilder();
+      try {
+        element.openTo(out);
+        SafeHtmlBuilder.appendEndTag(element.getElementName(), endTag);
+      } catch (IOException e) {
+        // Should never happen, appending to a StringBuilder doesn't do I/O.
+        throw new AssertionError(e);
+      }
+      return endTag.toString();
+    }
+  }
+
+  /** A column's function, and whether its results are text to escape rather than SafeHtml. */
+  private static final class Column<R> {
+    final Function<? super R, ?> function;
+
+    final boolean escape;
+
+    Column(Function<? super R, ?> function, boolean escape) {
+      this.function = function;
+      this.escape = escape;
+    }
+
+    void appendCellContent(R row, Appendable out) throws IOException {
+      Object content = Preconditions.checkNotNull(function.apply(row), "cell content");
+      if (escape) {
+        String text = (String) content;
+        coerceAndEscapeHtml(text, 0, text.length(), out);
+      } else {
+        ((SafeHtml) content).writeTo(out);
+      }
+    }
+  }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import static com.google.common.html.types.BuilderUtils.coerceAndEscapeHtml;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.errorprone.annotations.CheckReturnValue;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * An element built once with {@link SafeHtmlBuilder} and then stamped out with different attribute
+ * values and content, without repeating the builder's checks or re-rendering its constant parts.
+ *
+ * <p>Values that vary are marked with {@link Slot}s. A slot's {@link Slot#placeholder()} is passed
+ * to the builder in place of a real value, so that all of the builder's checks run once, when the
+ * template is compiled. Placeholders are recognized by identity; their values are innocuous
+ * constants, such as {@link SafeUrl#INNOCUOUS_STRING} or the empty string, so they are harmless
+ * wherever else they end up:
+ *
+ * <pre>{@code
+ * SafeHtmlTemplate.Slot<SafeUrl> href = SafeHtmlTemplate.safeUrlSlot("href");
+ * SafeHtmlTemplate.Slot<String> title = SafeHtmlTemplate.stringSlot("title");
+ * SafeHtmlTemplate.Slot<SafeHtml> label = SafeHtmlTemplate.safeHtmlSlot("label");
+ * SafeHtmlTemplate link =
+ *     SafeHtmlTemplate.compile(
+ *         new SafeHtmlBuilder("a")
+ *             .setClass("nav")
+ *             .setHref(href.placeholder())
+ *             .setTitle(title.placeholder())
+ *             .appendContent(label.placeholder()),
+ *         href, title, label);
+ *
+ * SafeHtml html = link.stamp().set(href, url).set(title, text).set(label, labelHtml).build();
+ * }</pre>
+ *
+ * <p>Stamping only escapes the attribute values and appends the parts. The result is the same as
+ * what the builder would have built given those values.
+ *
+ * <p>Placeholders must be passed to setters as is: a placeholder given to a {@code ...WithPrefix}
+ * setter, or whose attribute is later overwritten, is not found and {@link #compile} throws. String
+ * slots are not allowed for {@code rel} on {@code link} elements, since the builder checks that
+ * attribute's value.
+ */
+@CheckReturnValue
+@GwtIncompatible("Placeholders are recognized by identity")
+@Immutable
+public final class SafeHtmlTemplate {
+
+  /** Value of the placeholders of {@code String} slots. */
+  private static final String STRING_PLACEHOLDER = "javascript:<placeholder>";
+
+  /** Constant markup before each part, and after the last one. */
+  private final String[] markup;
+
+  /**
+   * Index in {@link #slots} of the slot filling each part, or -1 for constant content, which is
+   * then in {@link #contents}.
+   */
+  private final int[] partSlots;
+
+  /** Whether each part is an attribute value, rather than content. */
+  private final boolean[] partInAttribute;
+
+  private final SafeHtml[] contents;
+
+  private final Slot<?>[] slots;
+
+  /** Length of the constant markup, to presize the result. */
+  private final int markupLength;
+
+  private SafeHtmlTemplate(Compiler compiler) {
+    int parts = compiler.partSlots.size();
+    this.markup = compiler.markup.toArray(new String[parts + 1]);
+    this.partSlots = new int[parts];
+    this.partInAttribute = new boolean[parts];
+    this.contents = new SafeHtml[parts];
+    for (int i = 0; i < parts; i++) {
+      partSlots[i] = compiler.partSlots.get(i);
+      partInAttribute[i] = compiler.partInAttribute.get(i);
+      contents[i] = compiler.contents.get(i);
+    }
+    this.slots = compiler.slots;
+    int length = 0;
+    for (String text : markup) {
+      length += text.length();
+    }
+    this.markupLength = length;
+  }
+
+  /**
+   * Compiles the element {@code builder} would build into a template, with a slot for each place
+   * the placeholder of one of {@code slots} was given to it.
+   *
+   * @throws IllegalArgumentException if a slot's placeholder was not given to {@code builder}, or
+   *     was given to it in a place that doesn't accept the slot's type
+   */
+  public static SafeHtmlTemplate compile(SafeHtmlBuilder builder, Slot<?>... slots) {
+    Compiler compiler = new Compiler(builder.getElementName(), slots);
+    builder.compileTo(compiler);
+    compiler.finish();
+    for (int i = 0; i < slots.length; i++) {
+      if (!compiler.used[i]) {
+        throw new IllegalArgumentException(
+            "Placeholder for slot \"" + slots[i].name + "\" was not passed to the builder.");
+      }
+    }
+    return new SafeHtmlTemplate(compiler);
+  }
+
+  /** Returns a slot for a {@code String} attribute value, which is escaped when stamped. */
+  public static Slot<String> stringSlot(String name) {
+    // Not a safe URL and has characters to escape, so that SafeUrls.sanitize and
+    // SafeHtmls.htmlEscape can't pass the same instance on as a value of another type.
+    String placeholder = newPlaceholder(STRING_PLACEHOLDER);
+    return new Slot<>(name, Kind.STRING, placeholder, placeholder);
+  }
+
+  /** Returns a slot for a {@link SafeUrl} attribute value. */
+  public static Slot<SafeUrl> safeUrlSlot(String name) {
+    String placeholder = newPlaceholder(SafeUrl.INNOCUOUS_STRING);
+    return new Slot<>(name, Kind.SAFE_URL, new SafeUrl(placeholder), placeholder);
+  }
+
+  /** Returns a slot for a {@link TrustedResourceUrl} attribute value. */
+  public static Slot<TrustedResourceUrl> trustedResourceUrlSlot(String name) {
+    String placeholder = newPlaceholder(SafeUrl.INNOCUOUS_STRING);
+    return new Slot<>(
+        name, Kind.TRUSTED_RESOURCE_URL, new TrustedResourceUrl(placeholder), placeholder);
+  }
+
+  /** Returns a slot for a {@link SafeStyle} attribute value. */
+  public static Slot<SafeStyle> safeStyleSlot(String name) {
+    String placeholder = newPlaceholder("");
+    return new Slot<>(name, Kind.SAFE_STYLE, new SafeStyle(placeholder), placeholder);
+  }
+
+  /** Returns a slot for {@link SafeHtml} content, or a {@code srcdoc} attribute value. */
+  public static Slot<SafeHtml> safeHtmlSlot(String name) {
+    String placeholder = newPlaceholder("");
+    return new Slot<>(name, Kind.SAFE_HTML, new SafeHtml(placeholder), placeholder);
+  }
+
+  /**
+   * Returns a new instance of the constant {@code value}, so that it can be told apart from any
+   * other string by identity. Placeholders of the safe types only ever wrap constants that are safe
+   * on their own, such as {@link SafeUrl#INNOCUOUS_STRING}, and never a slot's name, so that a
+   * placeholder used outside of {@link #compile} still honors its type's contract.
+   */
+  private static String newPlaceholder(String value) {
+    return new String(value);
+  }
+
+  /** Returns a new, empty set of values for this template's slots. */
+  public Stamper stamp() {
+    return new Stamper();
+  }
+
+  private int indexOf(Slot<?> slot) {
+    for (int i = 0; i < slots.length; i++) {
+      if (slots[i] == slot) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("Slot \"" + slot.name + "\" is not part of this template.");
+  }
+
+  private enum Kind {
+    STRING,
+    SAFE_URL,
+    TRUSTED_RESOURCE_URL,
+    SAFE_STYLE,
+    SAFE_HTML
+  }
+
+  /**
+   * A place in a {@link SafeHtmlTemplate} that is given a value of type {@code T} each time the
+   * template is stamped. Slots are compared by identity.
+   */
+  @Immutable
+  public static final class Slot<T> {
+    private final String name;
+    private final Kind kind;
+    private final T placeholder;
+    private final String placeholderString;
+
+    private Slot(String name, Kind kind, T placeholder, String placeholderString) {
+      this.name = name;
+      this.kind = kind;
+      this.placeholder = placeholder;
+      this.placeholderString = placeholderString;
+    }
+
+    /**
+     * Returns the value to give a {@link SafeHtmlBuilder} in place of this slot's values. It wraps
+     * an innocuous constant, and is only told apart from other values by identity.
+     */
+    public T placeholder() {
+      return placeholder;
+    }
+
+    @Override
+    public String toString() {
+      return "Slot{" + name + "}";
+    }
+  }
+
+  /** Values for the slots of a template, given for a single stamping. */
+  @NotThreadSafe
+  public final class Stamper {
+    private final String[] values = new String[slots.length];
+    private final SafeHtml[] htmlValues = new SafeHtml[slots.length];
+
+    private Stamper() {}
+
+    /**
+     * Sets the value of {@code slot}.
+     *
+     * @throws IllegalArgumentException if {@code slot} is not part of this template
+     */
+    @CanIgnoreReturnValue
+    public <T> Stamper set(Slot<T> slot, T value) {
+      if (value == null) {
+        throw new NullPointerException();
+      }
+      int index = indexOf(slot);
+      switch (slot.kind) {
+        case STRING:
+          values[index] = (String) value;
+          break;
+        case SAFE_URL:
+          values[index] = ((SafeUrl) value).getSafeUrlString();
+          break;
+        case TRUSTED_RESOURCE_URL:
+          values[index] = ((TrustedResourceUrl) value).getTrustedResourceUrlString();
+          break;
+        case SAFE_STYLE:
+          values[index] = ((SafeStyle) value).getSafeStyleString();
+          break;
+        case SAFE_HTML:
+          htmlValues[index] = (SafeHtml) value;
+          break;
+      }
+      return this;
+    }
+
+    /**
+     * Returns the element with every slot filled in.
+     *
+     * @throws IllegalStateException if a slot has no value
+     */
+    public SafeHtml build() {
+      List<SafeHtml> htmls = new ArrayList<>();
+      StringBuilder sb = new StringBuilder(markupLength + 16 * partSlots.length);
+      try {
+        for (int i = 0; i < partSlots.length; i++) {
+          sb.append(markup[i]);
+          int slot = partSlots[i];
+          if (partInAttribute[i]) {
+            String value = valueOf(slot);
+            coerceAndEscapeHtml(value, 0, value.length(), sb);
+          } else {
+            // Content is linked to rather than copied, as SafeHtmlBuilder.build() does.
+            htmls.add(SafeHtmls.create(sb.toString()));
+            sb.setLength(0);
+            htmls.add(slot < 0 ? contents[i] : htmlValueOf(slot));
+          }
+        }
+      } catch (IOException e) {
+        // Should never happen, appending to a StringBuilder doesn't do I/O.
+        throw new AssertionError(e);
+      }
+      sb.append(markup[partSlots.length]);
+      htmls.add(SafeHtmls.create(sb.toString()));
+      return SafeHtmls.concat(htmls);
+    }
+
+    private String valueOf(int slot) {
+      String value = values[slot];
+      if (value == null) {
+        SafeHtml html = htmlValueOf(slot);
+        value = html.getSafeHtmlString();
+      }
+      return value;
+    }
+
+    private SafeHtml htmlValueOf(int slot) {
+      SafeHtml html = htmlValues[slot];
+      if (html == null) {
+        throw new IllegalStateException("No value for slot \"" + slots[slot].name + "\".");
+      }
+      return html;
+    }
+  }
+
+  /**
+   * Receives the parts of an element from {@link SafeHtmlBuilder#compileTo}, and tells the
+   * placeholders of slots apart from constant values.
+   */
+  static final class Compiler {
+    private final String elementName;
+    private final Slot<?>[] slots;
+    private final boolean[] used;
+    private final Map<String, Integer> slotsByPlaceholder = new IdentityHashMap<>();
+
+    private final List<String> markup = new ArrayList<>();
+    private final List<Integer> partSlots = new ArrayList<>();
+    private final List<Boolean> partInAttribute = new ArrayList<>();
+    private final List<SafeHtml> contents = new ArrayList<>();
+    private final StringBuilder pendingMarkup = new StringBuilder();
+
+    private Compiler(String elementName, Slot<?>[] slots) {
+      this.elementName = elementName;
+      this.slots = slots.clone();
+      this.used = new boolean[slots.length];
+      for (int i = 0; i < slots.length; i++) {
+        slotsByPlaceholder.put(slots[i].placeholderString, i);
+      }
+    }
+
+    /** Appends markup that is already safe. */
+    void markup(String html) {
+      pendingMarkup.append(html);
+    }
+
+    /** Appends the value of attribute {@code name}, escaped unless it is a placeholder. */
+    void attributeValue(String name, String value) {
+      Integer slot = slotsByPlaceholder.get(value);
+      if (slot == null) {
+        pendingMarkup.append(coerceAndEscapeHtml(value));
+        return;
+      }
+      if (name.equals("rel") && elementName.equals("link")) {
+        throw new IllegalArgumentException(
+            "Slot \"" + slots[slot].name + "\" can't be used for rel on a link element.");
+      }
+      addPart(slot, true, null);
+    }
+
+    /** Appends content, which must be SafeHtml if it is a placeholder. */
+    void content(SafeHtml html) {
+      Integer slot = html.isFlat() ? slotsByPlaceholder.get(html.getSafeHtmlString()) : null;
+      if (slot == null) {
+        addPart(-1, false, html);
+        return;
+      }
+      if (slots[slot].kind != Kind.SAFE_HTML) {
+        throw new IllegalArgumentException(
+            "Slot \"" + slots[slot].name + "\" can't be used for content.");
+      }
+      addPart(slot, false, null);
+    }
+
+    private void addPart(int slot, boolean inAttribute, @Nullable SafeHtml content) {
+      if (slot >= 0) {
+        used[slot] = true;
+      }
+      markup.add(pendingMarkup.toString());
+      pendingMarkup.setLength(0);
+      partSlots.add(slot);
+      partInAttribute.add(inAttribute);
+      contents.add(content);
+    }
+
+    /** Called once all the parts have been appended. */
+    void finish() {
+      markup.add(pendingMarkup.toString());
+    }
+  }
+}
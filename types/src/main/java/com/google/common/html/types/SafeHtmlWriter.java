@@ -0,0 +1,270 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Preconditions;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Writes HTML which conforms to the {@link SafeHtml} contract straight to an {@code Appendable} or
+ * {@code OutputStream}, one element at a time, so that documents too large to hold in memory (for
+ * example, reports with many thousands of table rows) can be streamed out.
+ *
+ * <p>Elements are described by {@link SafeHtmlBuilder}s, which check their attributes as usual.
+ * {@link #openElement} writes an element's start tag and any content appended to its builder so
+ * far, after which content can be written into it until {@link #closeElement} writes its end tag.
+ * The same content contracts as {@link SafeHtmlBuilder}'s apply: void elements are complete once
+ * opened, {@code script} only contains {@link SafeScript} and {@code style} only contains {@link
+ * SafeStyleSheet}. Only the names of the currently open elements are kept, so memory use doesn't
+ * grow with the size of the document.
+ *
+ * <pre>{@code
+ * try (SafeHtmlWriter writer = new SafeHtmlWriter(response.getOutputStream(), UTF_8)) {
+ *   writer.openElement(new SafeHtmlBuilder("table").setClass("report"));
+ *   for (Row row : rows) {
+ *     writer.openElement(new SafeHtmlBuilder("tr"));
+ *     writer.writeElement(new SafeHtmlBuilder("td").escapeAndAppendContent(row.name()));
+ *     writer.closeElement();
+ *   }
+ *   writer.closeElement();
+ * }
+ * }</pre>
+ */
+@GwtIncompatible("java.io.OutputStream")
+@NotThreadSafe
+public final class SafeHtmlWriter implements Flushable, Closeable {
+
+  private final Appendable out;
+
+  /** What {@link #flush()} and {@link #close()} are forwarded to, if it supports them. */
+  private final Object destination;
+
+  /** Set when encoding to UTF-8 ourselves, in which case {@link #out} is this writer. */
+  @Nullable private final Utf8HtmlWriter utf8;
+
+  /** Names of the open elements, outermost first, and their bits in SafeHtmlBuilder's sets. */
+  private String[] openNames = new String[8];
+
+  private int[] openBits = new int[8];
+  private int depth;
+
+  /**
+   * Creates a writer that appends to {@code out}. {@link #flush()} and {@link #close()} flush and
+   * close {@code out} if it supports that.
+   */
+  public SafeHtmlWriter(Appendable out) {
+    this.out = Preconditions.checkNotNull(out);
+    this.destination = out;
+    this.utf8 = null;
+  }
+
+  /**
+   * Creates a writer that writes to {@code out} encoded with {@code charset}. Output is buffered a
+   * chunk at a time; {@link #flush()} and {@link #close()} write out what is buffered and then
+   * flush or close {@code out}.
+   */
+  public SafeHtmlWriter(OutputStream out, Charset charset) {
+    if (Utf8HtmlWriter.UTF_8.equals(charset)) {
+      this.utf8 = Utf8HtmlWriter.to(out);
+      this.out = utf8;
+      this.destination = out;
+    } else {
+      OutputStreamWriter writer = new OutputStreamWriter(out, charset);
+      this.utf8 = null;
+      this.out = writer;
+      this.destination = writer;
+    }
+  }
+
+  /**
+   * Writes the start tag of {@code element} and any content already appended to it. Unless it is a
+   * void element, it is left open for content to be written into until {@link #closeElement()}.
+   * Changing {@code element} afterwards has no effect on what is written.
+   *
+   * @throws IllegalStateException if the innermost open element can't contain HTML
+   * @throws IOException if the destination throws
+   */
+  @CanIgnoreReturnValue
+  public SafeHtmlWriter openElement(SafeHtmlBuilder element) throws IOException {
+    checkSafeHtmlContent();
+    if (!element.openTo(out)) {
+      if (depth == openNames.length) {
+        openNames = Arrays.copyOf(openNames, depth * 2);
+        openBits = Arrays.copyOf(openBits, depth * 2);
+      }
+      openNames[depth] = element.getElementName();
+      openBits[depth] = element.getElementBit();
+      depth++;
+    }
+    return this;
+  }
+
+  /**
+   * Writes the whole element {@code element} would {@link SafeHtmlBuilder#build() build}.
+   *
+   * @throws IllegalStateException if the innermost open element can't contain HTML
+   * @throws IOException if the destination throws
+   */
+  @CanIgnoreReturnValue
+  public SafeHtmlWriter writeElement(SafeHtmlBuilder element) throws IOException {
+    checkSafeHtmlContent();
+    element.buildTo(out);
+    return this;
+  }
+
+  /**
+   * Writes {@code html} into the innermost open element, or at the top level if none is open.
+   *
+   * @throws IllegalStateException if the innermost open element can't contain HTML
+   * @throws IOException if the destination throws
+   */
+  @CanIgnoreReturnValue
+  public SafeHtmlWriter writeContent(SafeHtml html) throws IOException {
+    checkSafeHtmlContent();
+    html.writeTo(out);
+    return this;
+  }
+
+  /**
+   * HTML-escapes {@code text} into the innermost open element, or at the top level if none is
+   * open, as {@link SafeHtmls#htmlEscape(String)} does.
+   *
+   * @throws IllegalStateException if the innermost open element can't contain text
+   * @throws IOException if the destination throws
+   */
+  @CanIgnoreReturnValue
+  public SafeHtmlWriter escapeAndWriteContent(String text) throws IOException {
+    checkSafeHtmlContent();
+    if (utf8 != null) {
+      utf8.writeEscaped(text);
+    } else {
+      SafeHtmls.htmlEscapeTo(text, out);
+    }
+    return this;
+  }
+
+  /**
+   * Writes {@code script} into the innermost open element.
+   *
+   * @throws IllegalStateException if no element is open or the innermost one can't contain
+   *     JavaScript
+   * @throws IOException if the destination throws
+   */
+  @CanIgnoreReturnValue
+  public SafeHtmlWriter writeScriptContent(SafeScript script) throws IOException {
+    checkOpen();
+    SafeHtmlBuilder.checkSafeScriptElement(openNames[depth - 1], openBits[depth - 1]);
+    script.writeTo(out);
+    return this;
+  }
+
+  /**
+   * Writes {@code style} into the innermost open element.
+   *
+   * @throws IllegalStateException if no element is open or the innermost one can't contain CSS
+   * @throws IOException if the destination throws
+   */
+  @CanIgnoreReturnValue
+  public SafeHtmlWriter writeStyleContent(SafeStyleSheet style) throws IOException {
+    checkOpen();
+    SafeHtmlBuilder.checkSafeStyleSheetElement(openNames[depth - 1], openBits[depth - 1]);
+    style.writeTo(out);
+    return this;
+  }
+
+  /**
+   * Writes the end tag of the innermost open element.
+   *
+   * @throws IllegalStateException if no element is open
+   * @throws IOException if the destination throws
+   */
+  @CanIgnoreReturnValue
+  public SafeHtmlWriter closeElement() throws IOException {
+    checkOpen();
+    depth--;
+    SafeHtmlBuilder.appendEndTag(openNames[depth], out);
+    openNames[depth] = null;
+    return this;
+  }
+
+  /** Returns the number of elements opened but not yet closed. */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Writes out anything buffered and flushes the destination.
+   *
+   * @throws IOException if the destination throws
+   */
+  @Override
+  public void flush() throws IOException {
+    if (utf8 != null) {
+      utf8.flush();
+    }
+    if (destination instanceof Flushable) {
+      ((Flushable) destination).flush();
+    }
+  }
+
+  /**
+   * Writes out anything buffered and closes the destination.
+   *
+   * @throws IllegalStateException if elements were left open, after closing the destination
+   * @throws IOException if the destination throws
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (utf8 != null) {
+        utf8.finish();
+      }
+    } finally {
+      if (destination instanceof Closeable) {
+        ((Closeable) destination).close();
+      } else if (destination instanceof Flushable) {
+        ((Flushable) destination).flush();
+      }
+    }
+    Preconditions.checkState(depth == 0, "Element \"%s\" was not closed.", innermostName());
+  }
+
+  private void checkSafeHtmlContent() {
+    if (depth > 0) {
+      SafeHtmlBuilder.checkSafeHtmlElement(openNames[depth - 1], openBits[depth - 1]);
+    }
+  }
+
+  private void checkOpen() {
+    Preconditions.checkState(depth > 0, "No element is open.");
+  }
+
+  @Nullable
+  private String innermostName() {
+    return depth > 0 ? openNames[depth - 1] : null;
+  }
+}
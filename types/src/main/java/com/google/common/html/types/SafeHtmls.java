@@ -16,8 +16,7 @@
 
 package com.google.common.html.types;
 
-import static com.google.common.html.types.BuilderUtils.coerceToInterchangeValid;
-import static com.google.common.html.types.BuilderUtils.escapeHtmlInternal;
+import static com.google.common.html.types.BuilderUtils.coerceAndEscapeHtml;
 
 import com.google.common.annotations.GwtCompatible;
 import com.google.common.annotations.GwtIncompatible;
@@ -26,6 +25,9 @@ import com.google.common.io.Resources;
 import com.google.errorprone.annotations.CheckReturnValue;
 import com.google.errorprone.annotations.CompileTimeConstant;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 
@@ -60,20 +62,23 @@ public final class SafeHtmls {
    * Creates a SafeHtml from the given compile-time constant {@code resourceName}. The resource will
    * be loaded using {@link Resources#getResource(String)} and treated as UTF-8.
    *
+   * <p>The resource is read and decoded once, and then cached along with the returned value.
+   *
    * <p>This performs ZERO VALIDATION of the data. We assume that resources should be safe because
    * they are part of the binary, and therefore not attacker controlled.
    */
   @GwtIncompatible("Resources")
   public static SafeHtml fromResource(@CompileTimeConstant final String resourceName)
       throws IOException {
-    return create(
-        Resources.toString(Resources.getResource(resourceName), Charset.forName("UTF-8")));
+    return ResourceCache.get(resourceName, Charset.forName("UTF-8")).toSafeHtml();
   }
 
   /**
    * Creates a SafeHtml from the given compile-time constant {@code resourceName}. The resource will
    * be loaded using {@link Resources#getResource(Class, String)} and treated as UTF-8.
    *
+   * <p>The resource is read and decoded once, and then cached along with the returned value.
+   *
    * <p>This performs ZERO VALIDATION of the data. We assume that resources should be safe because
    * they are part of the binary, and therefore not attacker controlled.
    *
@@ -82,9 +87,21 @@ public final class SafeHtmls {
   @GwtIncompatible("Resources")
   public static SafeHtml fromResource(
       Class<?> contextClass, @CompileTimeConstant final String resourceName) throws IOException {
-    return create(
-        Resources.toString(
-            Resources.getResource(contextClass, resourceName), Charset.forName("UTF-8")));
+    return ResourceCache.get(contextClass, resourceName, Charset.forName("UTF-8")).toSafeHtml();
+  }
+
+  /**
+   * Reads and caches the given compile-time constant {@code resourceName}, treated as UTF-8, so that
+   * later calls to {@link #fromResource(Class, String)} for it don't do any I/O. Meant to be called
+   * at startup.
+   *
+   * @param contextClass Class relative to which to load the resource.
+   * @throws IllegalArgumentException if the resource is not found
+   */
+  @GwtIncompatible("Resources")
+  public static void preloadResource(
+      Class<?> contextClass, @CompileTimeConstant final String resourceName) throws IOException {
+    ResourceCache.get(contextClass, resourceName, Charset.forName("UTF-8"));
   }
 
   /**
@@ -207,27 +224,165 @@ public final class SafeHtmls {
         .build();
   }
 
-  /** Converts, by HTML-escaping, an arbitrary string into a contract-compliant {@link SafeHtml}. */
+  /**
+   * Converts, by HTML-escaping, an arbitrary string into a contract-compliant {@link SafeHtml}.
+   * Code points that can't appear in both HTML and XML, such as unpaired surrogates, non-characters
+   * and most control characters, are replaced by U+FFFD.
+   */
   public static SafeHtml htmlEscape(String text) {
     return create(htmlEscapeInternal(text));
   }
 
+  /**
+   * HTML-escapes {@code text} exactly as {@link #htmlEscape(String)} does, appending the result to
+   * {@code out} instead of returning it. No escaped copy of {@code text} is materialized, which
+   * makes this the better choice when writing large text straight to a response.
+   *
+   * <p>Everything appended to {@code out} is contract-compliant HTML, so this can be used on sinks
+   * that must only receive {@link SafeHtml}.
+   *
+   * @throws IOException if {@code out} throws
+   */
+  public static void htmlEscapeTo(CharSequence text, Appendable out) throws IOException {
+    coerceAndEscapeHtml(text, 0, text.length(), out);
+  }
+
+  /**
+   * HTML-escapes the {@code length} characters of {@code text} starting at {@code offset}, as
+   * {@link #htmlEscapeTo(CharSequence, Appendable)} does.
+   *
+   * @throws IndexOutOfBoundsException if {@code offset} and {@code length} don't denote a range
+   *     within {@code text}
+   * @throws IOException if {@code out} throws
+   */
+  @GwtIncompatible("java.nio.CharBuffer")
+  public static void htmlEscapeTo(char[] text, int offset, int length, Appendable out)
+      throws IOException {
+    Preconditions.checkPositionIndexes(offset, offset + length, text.length);
+    // A view of the array, not a copy.
+    coerceAndEscapeHtml(CharBuffer.wrap(text, offset, length), 0, length, out);
+  }
+
+  /**
+   * HTML-escapes {@code text} exactly as {@link #htmlEscape(String)} does and writes the result,
+   * encoded as UTF-8, to {@code out} starting at its position. Escaping and encoding happen in a
+   * single pass, without creating an intermediate {@code String} or {@code byte[]}.
+   *
+   * @throws java.nio.BufferOverflowException if {@code out} doesn't have enough room, in which case
+   *     its position is left unchanged
+   */
+  @GwtIncompatible("java.nio.ByteBuffer")
+  public static void htmlEscapeToUtf8(CharSequence text, ByteBuffer out) {
+    try {
+      Utf8HtmlWriter.to(out).writeEscaped(text).finish();
+    } catch (IOException e) {
+      // Should never happen, writing to a ByteBuffer doesn't do I/O.
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * HTML-escapes {@code text} exactly as {@link #htmlEscape(String)} does and writes the result,
+   * encoded as UTF-8, to {@code out}. Escaping and encoding happen in a single pass, without
+   * creating an intermediate {@code String}.
+   *
+   * @throws IOException if {@code out} throws
+   */
+  @GwtIncompatible("java.io.OutputStream")
+  public static void htmlEscapeToUtf8(CharSequence text, OutputStream out) throws IOException {
+    Utf8HtmlWriter.to(out, text.length()).writeEscaped(text).finish();
+  }
+
   /** Returns HTML-escaped text as a SafeHtml object, with newlines changed to {@code <br>}. */
   public static SafeHtml htmlEscapePreservingNewlines(String text) {
-    return create(htmlEscapeInternal(text).replaceAll("\r?\n|\r", "<br>"));
+    StringBuilder html = new StringBuilder(text.length());
+    try {
+      htmlEscapePreserving(text, false, html);
+    } catch (IOException e) {
+      // Should never happen, appending to a StringBuilder doesn't do I/O.
+      throw new AssertionError(e);
+    }
+    return create(html.toString());
   }
 
   /** Returns HTML-escaped text as a SafeHtml object, with newlines changed to {@code <br>}. */
   public static SafeHtml htmlEscapePreservingWhitespace(String text) {
-    String html =
-        htmlEscapeInternal(text)
-            // Leading space is converted into a non-breaking space, and spaces following whitespace
-            // are converted into non-breaking spaces. This must happen first, to ensure we preserve
-            // spaces after newlines.
-            .replaceAll("(^|[\r\n\t ]) ", "$1&#160;")
-            .replaceAll("\r?\n|\r", "<br>")
-            .replaceAll("(\t+)", "<span style=\"white-space:pre\">$1</span>");
-    return create(html);
+    StringBuilder html = new StringBuilder(text.length());
+    try {
+      htmlEscapePreserving(text, true, html);
+    } catch (IOException e) {
+      // Should never happen, appending to a StringBuilder doesn't do I/O.
+      throw new AssertionError(e);
+    }
+    return create(html.toString());
+  }
+
+  /**
+   * Appends {@code text} to {@code out} exactly as {@link #htmlEscapePreservingNewlines(String)}
+   * would, in a single pass.
+   *
+   * @throws IOException if {@code out} throws
+   */
+  public static void htmlEscapePreservingNewlinesTo(CharSequence text, Appendable out)
+      throws IOException {
+    htmlEscapePreserving(text, false, out);
+  }
+
+  /**
+   * Appends {@code text} to {@code out} exactly as {@link #htmlEscapePreservingWhitespace(String)}
+   * would, in a single pass.
+   *
+   * @throws IOException if {@code out} throws
+   */
+  public static void htmlEscapePreservingWhitespaceTo(CharSequence text, Appendable out)
+      throws IOException {
+    htmlEscapePreserving(text, true, out);
+  }
+
+  /**
+   * Escapes {@code text} and changes newlines to {@code <br>} in one scan. If {@code whitespace} is
+   * true, a leading space and spaces that follow whitespace become non-breaking spaces, and runs of
+   * tabs are wrapped in a span that preserves them.
+   */
+  private static void htmlEscapePreserving(CharSequence text, boolean whitespace, Appendable out)
+      throws IOException {
+    int length = text.length();
+    // Whether a space at i would follow the start of text or whitespace that is kept as is.
+    boolean afterWhitespace = true;
+    int runStart = 0;
+    int i = 0;
+    while (i < length) {
+      char c = text.charAt(i);
+      if (c != '\r' && c != '\n' && (!whitespace || (c != '\t' && c != ' '))) {
+        i++;
+        continue;
+      }
+      if (runStart < i) {
+        coerceAndEscapeHtml(text, runStart, i, out);
+        afterWhitespace = false;
+      }
+      if (c == '\r' || c == '\n') {
+        out.append("<br>");
+        i += (c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n') ? 2 : 1;
+        afterWhitespace = true;
+      } else if (c == '\t') {
+        int tabsStart = i;
+        do {
+          i++;
+        } while (i < length && text.charAt(i) == '\t');
+        out.append("<span style=\"white-space:pre\">").append(text, tabsStart, i).append("</span>");
+        afterWhitespace = true;
+      } else {
+        // A space.
+        out.append(afterWhitespace ? "&#160;" : " ");
+        afterWhitespace = !afterWhitespace;
+        i++;
+      }
+      runStart = i;
+    }
+    if (runStart < length) {
+      coerceAndEscapeHtml(text, runStart, length, out);
+    }
   }
 
   /**
@@ -257,18 +412,13 @@ public final class SafeHtmls {
   /**
    * Creates a new SafeHtml which contains, in order, the string representations of the given {@code
    * htmls}.
+   *
+   * <p>This takes time proportional to the number of {@code htmls}, not their length: the result
+   * refers to them and is only flattened into one string when that string is first needed, so
+   * building a page out of nested concatenations copies each fragment once.
    */
   public static SafeHtml concat(Iterable<SafeHtml> htmls) {
-    int concatLength = 0;
-    for (SafeHtml html : htmls) {
-      concatLength += html.getSafeHtmlString().length();
-    }
-
-    StringBuilder result = new StringBuilder(concatLength);
-    for (SafeHtml html : htmls) {
-      result.append(html.getSafeHtmlString());
-    }
-    return create(result.toString());
+    return SafeHtml.concat(htmls);
   }
 
   // Default visibility for use by SafeHtmlBuilder.
@@ -277,7 +427,8 @@ public final class SafeHtmls {
   }
 
   private static String htmlEscapeInternal(String text) {
-    return escapeHtmlInternal(coerceToInterchangeValid(text));
+    // Coerces and escapes in a single pass.
+    return coerceAndEscapeHtml(text);
   }
 
   private SafeHtmls() {}
@@ -43,19 +43,23 @@ public final class SafeScripts {
    * Creates a SafeScript from the given compile-time constant {@code resourceName} using the given
    * {@code charset}. The resource will be loaded using {@link Resources#getResource(String)}.
    *
+   * <p>The resource is read and decoded once, and then cached along with the returned value.
+   *
    * <p>This performs ZERO VALIDATION of the data. We assume that resources should be safe because
    * they are part of the binary, and therefore not attacker controlled.
    */
   @GwtIncompatible("Resources")
   public static SafeScript fromResource(
       @CompileTimeConstant final String resourceName, Charset charset) throws IOException {
-    return create(Resources.toString(Resources.getResource(resourceName), charset));
+    return ResourceCache.get(resourceName, charset).toSafeScript();
   }
 
   /**
    * Creates a SafeScript from the given compile-time constant {@code resourceName} using the given
    * {@code charset}.
    *
+   * <p>The resource is read and decoded once, and then cached along with the returned value.
+   *
    * <p>This performs ZERO VALIDATION of the data. We assume that resources should be safe because
    * they are part of the binary, and therefore not attacker controlled.
    *
@@ -65,7 +69,22 @@ public final class SafeScripts {
   public static SafeScript fromResource(
       Class<?> contextClass, @CompileTimeConstant final String resourceName, Charset charset)
       throws IOException {
-    return create(Resources.toString(Resources.getResource(contextClass, resourceName), charset));
+    return ResourceCache.get(contextClass, resourceName, charset).toSafeScript();
+  }
+
+  /**
+   * Reads and caches the given compile-time constant {@code resourceName}, decoded with {@code
+   * charset}, so that later calls to {@link #fromResource(Class, String, Charset)} for it don't do
+   * any I/O. Meant to be called at startup.
+   *
+   * @param contextClass Class relative to which to load the resource.
+   * @throws IllegalArgumentException if the resource is not found
+   */
+  @GwtIncompatible("Resources")
+  public static void preloadResource(
+      Class<?> contextClass, @CompileTimeConstant final String resourceName, Charset charset)
+      throws IOException {
+    ResourceCache.get(contextClass, resourceName, charset);
   }
 
   /**
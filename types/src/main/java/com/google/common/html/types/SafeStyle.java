@@ -16,7 +16,11 @@
 
 package com.google.common.html.types;
 
+import com.google.common.annotations.GwtIncompatible;
 import com.google.errorprone.annotations.CheckReturnValue;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import jsinterop.annotations.JsType;
@@ -147,4 +151,23 @@ public final class SafeStyle {
   public String getSafeStyleString() {
     return privateDoNotAccessOrElseSafeStyleWrappedValue;
   }
+
+  /**
+   * Appends this value's underlying string to {@code out}.
+   *
+   * @throws IOException if {@code out} throws
+   */
+  public void writeTo(Appendable out) throws IOException {
+    out.append(privateDoNotAccessOrElseSafeStyleWrappedValue);
+  }
+
+  /**
+   * Writes this value's underlying string to {@code out}, encoded with {@code charset}.
+   *
+   * @throws IOException if {@code out} throws
+   */
+  @GwtIncompatible("java.io.OutputStream")
+  public void writeTo(OutputStream out, Charset charset) throws IOException {
+    Utf8HtmlWriter.encodeTo(privateDoNotAccessOrElseSafeStyleWrappedValue, out, charset);
+  }
 }
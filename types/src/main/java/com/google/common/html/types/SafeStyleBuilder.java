@@ -51,6 +51,20 @@ public final class SafeStyleBuilder {
 
   private final LinkedHashMap<String, String> properties = new LinkedHashMap<String, String>();
 
+  /** Whether this builder was released to a {@link BuilderPool} and not acquired since. */
+  boolean released;
+
+  /**
+   * Clears all properties set so far, so that this builder builds an empty style again. The space
+   * already allocated for properties is kept. See {@link BuilderPool} for sharing builders across
+   * requests.
+   */
+  @CanIgnoreReturnValue
+  public SafeStyleBuilder reset() {
+    properties.clear();
+    return this;
+  }
+
   // TODO(mlourenco): Consider whether we want to avoid or discourage the  following asymmetry:
   // .backgroundAttachmendAppend("1", "2").backgroundImageAppendConstant("1,2")
 
@@ -16,7 +16,12 @@
 
 package com.google.common.html.types;
 
+import com.google.common.annotations.GwtIncompatible;
 import com.google.errorprone.annotations.CheckReturnValue;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import jsinterop.annotations.JsType;
@@ -52,6 +57,11 @@ public final class SafeStyleSheet {
 
   private final String privateDoNotAccessOrElseSafeStyleSheetWrappedValue;
 
+  /** This value's string encoded as UTF-8, or null until first needed, as in {@link SafeHtml}. */
+  @SuppressWarnings("Immutable") // A cache, never exposed.
+  @Nullable
+  private volatile byte[] utf8;
+
   SafeStyleSheet(String styleSheet) {
     if (styleSheet == null) {
       throw new NullPointerException();
@@ -98,4 +108,56 @@ public final class SafeStyleSheet {
   public String getSafeStyleSheetString() {
     return privateDoNotAccessOrElseSafeStyleSheetWrappedValue;
   }
+
+  /**
+   * Appends this value's underlying string to {@code out}.
+   *
+   * @throws IOException if {@code out} throws
+   */
+  public void writeTo(Appendable out) throws IOException {
+    out.append(privateDoNotAccessOrElseSafeStyleSheetWrappedValue);
+  }
+
+  /**
+   * Writes this value's underlying string to {@code out}, encoded with {@code charset}.
+   *
+   * @throws IOException if {@code out} throws
+   */
+  @GwtIncompatible("java.io.OutputStream")
+  public void writeTo(OutputStream out, Charset charset) throws IOException {
+    byte[] bytes = utf8;
+    if (bytes != null && Utf8HtmlWriter.UTF_8.equals(charset)) {
+      out.write(bytes);
+    } else {
+      Utf8HtmlWriter.encodeTo(privateDoNotAccessOrElseSafeStyleSheetWrappedValue, out, charset);
+    }
+  }
+
+  /**
+   * Returns this value's underlying string encoded as UTF-8. The encoding is computed once and
+   * cached; each call returns a new copy of it.
+   */
+  @GwtIncompatible("java.nio.charset.Charset")
+  public byte[] toUtf8Bytes() {
+    return utf8().clone();
+  }
+
+  /**
+   * Returns a read-only view of this value's underlying string encoded as UTF-8. The encoding is
+   * computed once and cached, so serving the same value repeatedly doesn't encode or copy it again.
+   */
+  @GwtIncompatible("java.nio.ByteBuffer")
+  public ByteBuffer utf8ByteBuffer() {
+    return ByteBuffer.wrap(utf8()).asReadOnlyBuffer();
+  }
+
+  @GwtIncompatible("java.nio.charset.Charset")
+  private byte[] utf8() {
+    byte[] bytes = utf8;
+    if (bytes == null) {
+      bytes = getSafeStyleSheetString().getBytes(Utf8HtmlWriter.UTF_8);
+      utf8 = bytes;
+    }
+    return bytes;
+  }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.errorprone.annotations.CheckReturnValue;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Remembers the results of splicing {@link SplicePlan}s, so that splicing a template again with
+ * the same values returns the earlier result instead of splicing it again.
+ *
+ * <p>A page made of nested templates is spliced from the innermost templates out, each one through
+ * the cache. Subtrees whose values are the same instances as before are then found in the cache,
+ * and since the results are the same instances as before too, so are the values of the templates
+ * containing them, all the way up to those a changed subtree is part of. Only those are spliced
+ * again:
+ *
+ * <pre>{@code
+ * SafeHtml nav = cache.splice(navPlan, navItems);
+ * SafeHtml sidebar = cache.splice(sidebarPlan, nav, ads);
+ * SafeHtml page = cache.splice(pagePlan, header, sidebar, userContent);
+ * }</pre>
+ *
+ * <p>Results are keyed by the identity of the plan and of the values, so a lookup never reads the
+ * values' HTML, and a value equal to an earlier one but not the same instance is spliced again.
+ * The cache holds results up to a total length, evicting the least recently used ones first, and
+ * {@link #stats()} tells how often splicing was avoided.
+ */
+@CheckReturnValue
+@GwtIncompatible("CacheBuilder.maximumWeight")
+@ThreadSafe
+public final class SpliceCache {
+
+  private final Cache<Key, SafeHtml> cache;
+
+  /** Creates a cache holding results up to a total length of {@code maximumChars}. */
+  public SpliceCache(long maximumChars) {
+    Preconditions.checkArgument(
+        maximumChars > 0, "maximumChars must be positive: %s", maximumChars);
+    cache =
+        CacheBuilder.newBuilder()
+            // A single segment, so that the whole budget is shared by all results rather than
+            // split four ways, which would evict any result over a quarter of it on insertion.
+            .concurrencyLevel(1)
+            .maximumWeight(maximumChars)
+            .weigher(
+                new Weigher<Key, SafeHtml>() {
+                  @Override
+                  public int weigh(Key key, SafeHtml html) {
+                    return html.length();
+                  }
+                })
+            .recordStats()
+            .build();
+  }
+
+  /**
+   * Returns what {@code plan.splice(values)} returns, spliced now or earlier with the same values.
+   *
+   * @throws IllegalArgumentException if the number of values is not the number of slots, or a
+   *     value is null
+   */
+  public SafeHtml splice(final SplicePlan plan, SafeHtml... values) {
+    plan.checkSlotCount(values);
+    plan.checkAllPresent(values);
+    final SafeHtml[] key = values.clone();
+    try {
+      return cache.get(
+          new Key(plan, key),
+          new Callable<SafeHtml>() {
+            @Override
+            public SafeHtml call() {
+              return plan.splice(key, true);
+            }
+          });
+    } catch (ExecutionException e) {
+      // Should never happen, splicing doesn't throw checked exceptions.
+      throw new AssertionError(e);
+    } catch (UncheckedExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  /**
+   * Returns what {@code template.spliceAll(substitutions)} returns, spliced now or earlier with
+   * the same values for the template's placeholders.
+   *
+   * @throws IllegalArgumentException if a placeholder is missing a substitution
+   */
+  public SafeHtml splice(SpliceableSafeHtml template, Map<String, SafeHtml> substitutions) {
+    SplicePlan plan = template.compile();
+    return splice(plan, plan.valuesOf(substitutions));
+  }
+
+  /** Returns how many splices were found in this cache and how many weren't. */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /** Removes all results from this cache. Its {@link #stats()} are kept. */
+  public void clear() {
+    cache.invalidateAll();
+  }
+
+  /** A plan and the values it was spliced with, all compared by identity. */
+  private static final class Key {
+    private final SplicePlan plan;
+    private final SafeHtml[] values;
+    private final int hashCode;
+
+    Key(SplicePlan plan, SafeHtml[] values) {
+      this.plan = plan;
+      this.values = values;
+      int hash = System.identityHashCode(plan);
+      for (SafeHtml value : values) {
+        hash = 31 * hash + System.identityHashCode(value);
+      }
+      this.hashCode = hash;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) other;
+      if (plan != that.plan || hashCode != that.hashCode) {
+        return false;
+      }
+      for (int i = 0; i < values.length; i++) {
+        if (values[i] != that.values[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
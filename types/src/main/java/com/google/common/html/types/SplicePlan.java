@@ -0,0 +1,390 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.errorprone.annotations.CheckReturnValue;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * A {@link SpliceableSafeHtml} compiled for splicing many times, as returned by {@link
+ * SpliceableSafeHtml#compile()}.
+ *
+ * <p>Adjacent {@link SafeHtml} segments are merged, and each distinct placeholder label is given a
+ * slot, numbered in the order the labels first appear. Values are then given by slot, either all
+ * at once to {@link #splice(SafeHtml...)} or one by one to a {@link Binder}, so splicing neither
+ * looks labels up in a map nor collects the segments into a list. Since the length of the constant
+ * segments is known, a short result is written straight into a buffer of exactly its length, and a
+ * long one links to the segments and values rather than copying them, as {@link
+ * SafeHtmls#concat(SafeHtml...)} does.
+ *
+ * <p>For output to a {@link java.nio.channels.GatheringByteChannel}, {@link
+ * #spliceToUtf8Buffers(SafeHtml...)} returns the result as UTF-8 buffers to write in order. The
+ * constant segments are encoded once, into read-only direct buffers shared by every splice, and
+ * each value's encoding is cached on the value, so nothing is copied into a new string.
+ *
+ * <pre>{@code
+ * SplicePlan page = skeleton.compile();
+ * int title = page.slotOf("title");
+ * int body = page.slotOf("body");
+ * SafeHtml html = page.bind().set(title, titleHtml).set(body, bodyHtml).build();
+ * }</pre>
+ */
+@CheckReturnValue
+@Immutable
+public final class SplicePlan {
+
+  /**
+   * The constant segments before each placeholder, and after the last one, with adjacent segments
+   * merged. Empty when two placeholders are adjacent.
+   */
+  private final SafeHtml[] constants;
+
+  /** The slot of each placeholder, in order. A slot appears more than once if its label does. */
+  private final int[] placeholderSlots;
+
+  /** The label of each slot. */
+  private final String[] labels;
+
+  /** {@link #labels}, in slot order, for lookups and for callers. */
+  private final ImmutableSet<String> labelSet;
+
+  private final Map<String, Integer> slotsByLabel;
+
+  /** Total length of {@link #constants}, to presize results. */
+  private final int constantLength;
+
+  /** {@link #constants} encoded as UTF-8, in read-only direct buffers created on first use. */
+  @GwtIncompatible("java.nio.ByteBuffer")
+  @Nullable
+  private volatile ByteBuffer[] utf8Constants;
+
+  SplicePlan(List<SpliceableSafeHtml.Segment> segments) {
+    List<SafeHtml> constants = new ArrayList<>();
+    List<Integer> placeholderSlots = new ArrayList<>();
+    List<String> labels = new ArrayList<>();
+    Map<String, Integer> slotsByLabel = new HashMap<>();
+    List<SafeHtml> pending = new ArrayList<>();
+    for (SpliceableSafeHtml.Segment segment : segments) {
+      switch (segment.getType()) {
+        case SAFE_HTML:
+          pending.add(checkNotNull(segment.getSafeHtml()));
+          break;
+        case PLACEHOLDER_LABEL:
+          String label = checkNotNull(segment.getPlaceholderLabel());
+          Integer slot = slotsByLabel.get(label);
+          if (slot == null) {
+            slot = labels.size();
+            labels.add(label);
+            slotsByLabel.put(label, slot);
+          }
+          constants.add(SafeHtmls.concat(pending));
+          pending.clear();
+          placeholderSlots.add(slot);
+          break;
+      }
+    }
+    constants.add(SafeHtmls.concat(pending));
+
+    this.constants = constants.toArray(new SafeHtml[constants.size()]);
+    this.placeholderSlots = new int[placeholderSlots.size()];
+    for (int i = 0; i < this.placeholderSlots.length; i++) {
+      this.placeholderSlots[i] = placeholderSlots.get(i);
+    }
+    this.labels = labels.toArray(new String[labels.size()]);
+    this.labelSet = ImmutableSet.copyOf(labels);
+    this.slotsByLabel = slotsByLabel;
+    int length = 0;
+    for (SafeHtml constant : this.constants) {
+      length += constant.length();
+    }
+    this.constantLength = length;
+  }
+
+  /** Returns the number of slots, which is the number of distinct placeholder labels. */
+  public int getSlotCount() {
+    return labels.length;
+  }
+
+  /** Returns the placeholder label of each slot, in slot order. */
+  public List<String> getLabels() {
+    return labelSet.asList();
+  }
+
+  /** Returns the placeholder labels, in slot order. */
+  ImmutableSet<String> getLabelSet() {
+    return labelSet;
+  }
+
+  /**
+   * Returns the slot of the placeholder labelled {@code label}.
+   *
+   * @throws IllegalArgumentException if there is no such placeholder
+   */
+  public int slotOf(String label) {
+    Integer slot = slotsByLabel.get(label);
+    if (slot == null) {
+      throw new IllegalArgumentException("No placeholder " + label);
+    }
+    return slot;
+  }
+
+  /**
+   * Returns the spliced SafeHtml, with the value of each slot given in slot order.
+   *
+   * @throws IllegalArgumentException if the number of values is not the number of slots, or a
+   *     value is null
+   */
+  public SafeHtml splice(SafeHtml... values) {
+    checkSlotCount(values);
+    return splice(values, true);
+  }
+
+  /**
+   * Appends the spliced SafeHtml to {@code out}, with the value of each slot given in slot order,
+   * without creating it first.
+   *
+   * @throws IllegalArgumentException if the number of values is not the number of slots, or a
+   *     value is null, in which case nothing is appended
+   * @throws IOException if {@code out} throws
+   */
+  public void spliceTo(Appendable out, SafeHtml... values) throws IOException {
+    checkSlotCount(values);
+    checkAllPresent(values);
+    writeTo(values, out);
+  }
+
+  /**
+   * Returns the spliced SafeHtml encoded as UTF-8, as buffers to write in order, for example with
+   * {@link java.nio.channels.GatheringByteChannel#write(ByteBuffer[])}, with the value of each slot
+   * given in slot order. The buffers are read-only, and writing them doesn't affect later splices.
+   *
+   * @throws IllegalArgumentException if the number of values is not the number of slots, or a
+   *     value is null
+   */
+  @GwtIncompatible("java.nio.ByteBuffer")
+  public ByteBuffer[] spliceToUtf8Buffers(SafeHtml... values) {
+    checkSlotCount(values);
+    checkAllPresent(values);
+    return toUtf8Buffers(values);
+  }
+
+  /** Returns a new, empty set of values for this plan's slots. */
+  public Binder bind() {
+    return new Binder();
+  }
+
+  void checkSlotCount(SafeHtml[] values) {
+    if (values.length != labels.length) {
+      throw new IllegalArgumentException(
+          "Expected " + labels.length + " values, one per placeholder, but got " + values.length);
+    }
+  }
+
+  void checkAllPresent(SafeHtml[] values) {
+    for (int slot = 0; slot < values.length; slot++) {
+      if (values[slot] == null) {
+        throw new IllegalArgumentException("Assignment missing for placeholder " + labels[slot]);
+      }
+    }
+  }
+
+  /**
+   * Returns the spliced SafeHtml, with the value of each slot given in slot order. Slots without a
+   * value either throw or are left empty, depending on {@code throwWhenMissing}.
+   */
+  SafeHtml splice(SafeHtml[] values, boolean throwWhenMissing) {
+    if (placeholderSlots.length == 0) {
+      return constants[0];
+    }
+    if (throwWhenMissing) {
+      checkAllPresent(values);
+    }
+    int length = constantLength;
+    for (int slot : placeholderSlots) {
+      SafeHtml value = values[slot];
+      if (value != null) {
+        length += value.length();
+      }
+    }
+
+    if (length < SafeHtml.MIN_ROPE_LENGTH) {
+      // The result is written straight into a buffer of exactly its length.
+      StringBuilder sb = new StringBuilder(length);
+      try {
+        writeTo(values, sb);
+      } catch (IOException e) {
+        // Should never happen, appending to a StringBuilder doesn't do I/O.
+        throw new AssertionError(e);
+      }
+      return SafeHtmls.create(sb.toString());
+    }
+    List<SafeHtml> htmls = new ArrayList<>(constants.length + placeholderSlots.length);
+    for (int i = 0; i < placeholderSlots.length; i++) {
+      htmls.add(constants[i]);
+      SafeHtml value = values[placeholderSlots[i]];
+      if (value != null) {
+        htmls.add(value);
+      }
+    }
+    htmls.add(constants[placeholderSlots.length]);
+    return SafeHtmls.concat(htmls);
+  }
+
+  @GwtIncompatible("java.nio.ByteBuffer")
+  private ByteBuffer[] toUtf8Buffers(SafeHtml[] values) {
+    ByteBuffer[] constantBuffers = utf8Constants();
+    ByteBuffer[] buffers = new ByteBuffer[constants.length + placeholderSlots.length];
+    int count = 0;
+    for (int i = 0; i <= placeholderSlots.length; i++) {
+      // Duplicates have their own position, so that writing them leaves the shared ones intact.
+      if (constantBuffers[i].hasRemaining()) {
+        buffers[count++] = constantBuffers[i].duplicate();
+      }
+      if (i < placeholderSlots.length && values[placeholderSlots[i]].length() > 0) {
+        buffers[count++] = values[placeholderSlots[i]].utf8ByteBuffer();
+      }
+    }
+    return count == buffers.length ? buffers : Arrays.copyOf(buffers, count);
+  }
+
+  @GwtIncompatible("java.nio.ByteBuffer")
+  private ByteBuffer[] utf8Constants() {
+    ByteBuffer[] buffers = utf8Constants;
+    if (buffers == null) {
+      buffers = new ByteBuffer[constants.length];
+      for (int i = 0; i < constants.length; i++) {
+        byte[] bytes = constants[i].toUtf8Bytes();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        buffers[i] = buffer.asReadOnlyBuffer();
+      }
+      utf8Constants = buffers;
+    }
+    return buffers;
+  }
+
+  /** Appends the constants and the values that are present to {@code out}. */
+  private void writeTo(SafeHtml[] values, Appendable out) throws IOException {
+    for (int i = 0; i < placeholderSlots.length; i++) {
+      constants[i].writeTo(out);
+      SafeHtml value = values[placeholderSlots[i]];
+      if (value != null) {
+        value.writeTo(out);
+      }
+    }
+    constants[placeholderSlots.length].writeTo(out);
+  }
+
+  /** Values for the slots of a {@link SplicePlan}, given for a single splice. */
+  @NotThreadSafe
+  public final class Binder {
+    private final SafeHtml[] values = new SafeHtml[labels.length];
+
+    private Binder() {}
+
+    /**
+     * Sets the value of slot {@code slot}.
+     *
+     * @throws IndexOutOfBoundsException if there is no such slot
+     */
+    @CanIgnoreReturnValue
+    public Binder set(int slot, SafeHtml value) {
+      values[slot] = checkNotNull(value);
+      return this;
+    }
+
+    /**
+     * Sets the value of the placeholder labelled {@code label}.
+     *
+     * @throws IllegalArgumentException if there is no such placeholder
+     */
+    @CanIgnoreReturnValue
+    public Binder set(String label, SafeHtml value) {
+      return set(slotOf(label), value);
+    }
+
+    /**
+     * Returns the spliced SafeHtml.
+     *
+     * @throws IllegalArgumentException if a slot has no value
+     */
+    public SafeHtml build() {
+      return splice(values, true);
+    }
+
+    /**
+     * Returns the spliced SafeHtml, with the placeholders of slots without a value left empty.
+     */
+    public SafeHtml buildIgnoringMissing() {
+      return splice(values, false);
+    }
+
+    /**
+     * Appends the spliced SafeHtml to {@code out}, without creating it first.
+     *
+     * @throws IllegalArgumentException if a slot has no value, in which case nothing is appended
+     * @throws IOException if {@code out} throws
+     */
+    public void buildTo(Appendable out) throws IOException {
+      checkAllPresent(values);
+      writeTo(values, out);
+    }
+
+    /**
+     * Returns the spliced SafeHtml encoded as UTF-8, as buffers to write in order, as {@link
+     * SplicePlan#spliceToUtf8Buffers(SafeHtml...)} does.
+     *
+     * @throws IllegalArgumentException if a slot has no value
+     */
+    @GwtIncompatible("java.nio.ByteBuffer")
+    public ByteBuffer[] buildUtf8Buffers() {
+      checkAllPresent(values);
+      return toUtf8Buffers(values);
+    }
+
+    /** Removes all values, so that the binder can be reused for another splice. */
+    @CanIgnoreReturnValue
+    public Binder clear() {
+      Arrays.fill(values, null);
+      return this;
+    }
+  }
+
+  /** Returns the value of each slot in {@code substitutions}, or null where it has none. */
+  SafeHtml[] valuesOf(Map<String, SafeHtml> substitutions) {
+    SafeHtml[] values = new SafeHtml[labels.length];
+    for (int slot = 0; slot < labels.length; slot++) {
+      values[slot] = substitutions.get(labels[slot]);
+    }
+    return values;
+  }
+}
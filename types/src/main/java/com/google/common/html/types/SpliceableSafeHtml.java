@@ -2,14 +2,17 @@ package com.google.common.html.types;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.errorprone.annotations.CheckReturnValue;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
@@ -29,9 +32,22 @@ import javax.annotation.concurrent.Immutable;
  */
 @CheckReturnValue
 public final class SpliceableSafeHtml {
+  /**
+   * Templates returned by {@link #parse(SafeHtml)}, keyed by the identity of the parsed SafeHtml,
+   * which isn't kept reachable by this cache.
+   */
+  private static final Cache<SafeHtml, SpliceableSafeHtml> PARSED =
+      CacheBuilder.newBuilder().weakKeys().maximumSize(1024).build();
+
   /** List of segments in the template. */
   private final List<Segment> segments;
 
+  /**
+   * The plan splicing uses, compiled on first use. Like {@code String}'s hash, this may be written
+   * racily, since every thread compiles an equivalent plan.
+   */
+  @Nullable private volatile SplicePlan plan;
+
   /** Serializes a {@link SpliceableSafeHtml} into its protocol message representation. */
   public SpliceableSafeHtmlProto toProto() {
     SpliceableSafeHtmlProto.Builder builder = SpliceableSafeHtmlProto.newBuilder();
@@ -72,6 +88,42 @@ public final class SpliceableSafeHtml {
     return new SpliceableSafeHtml(segments);
   }
 
+  /**
+   * Returns the template for {@code html}, with a placeholder in place of each comment whose text
+   * is a placeholder label, as {@link #toString()} renders them. A label is made of ASCII letters,
+   * digits, {@code _}, {@code -}, {@code .} and {@code :}, so that comments such as {@code <!--
+   * nav -->} are kept as is.
+   *
+   * <p>Only comments the browser would parse as such are placeholders, not text that looks like
+   * one inside a tag or in the content of an element such as {@code script} or {@code textarea}.
+   * Where that can't be told from the markup alone, as after {@code svg} content that switches
+   * back to HTML, the rest of {@code html} is kept as is.
+   *
+   * <p>{@code html} is parsed in a single scan, and the result is cached for as long as {@code
+   * html} is reachable, so parsing the same value again, for example one returned by {@link
+   * SafeHtmls#fromResource(Class, String)}, which caches its result, returns the same template:
+   *
+   * <pre>{@code
+   * SpliceableSafeHtml page =
+   *     SpliceableSafeHtml.parse(SafeHtmls.fromResource(Page.class, "page.html"));
+   * }</pre>
+   */
+  public static SpliceableSafeHtml parse(final SafeHtml html) {
+    try {
+      return PARSED.get(
+          html,
+          new Callable<SpliceableSafeHtml>() {
+            @Override
+            public SpliceableSafeHtml call() {
+              return new SpliceableSafeHtml(PlaceholderParser.parse(html.getSafeHtmlString()));
+            }
+          });
+    } catch (ExecutionException e) {
+      // Should never happen, parsing doesn't throw checked exceptions.
+      throw new AssertionError(e);
+    }
+  }
+
   /**
    * Constructs an empty {@link SpliceableSafeHtml}, used internally for incremental construction by
    * {@link #spliceSomePreservingPlaceholders(Map)}.
@@ -100,15 +152,49 @@ public final class SpliceableSafeHtml {
     return Collections.unmodifiableList(this.segments);
   }
 
-  /** @return The set of placeholder labels. */
+  /**
+   * @return A new, mutable set of the placeholder labels, in the order they first appear. {@link
+   *     #hasPlaceholder(String)} and {@link #getMissingPlaceholderLabels(Set)} answer the usual
+   *     questions about them without copying.
+   */
   public Set<String> getPlaceholderLabels() {
-    Set<String> labels = new HashSet<>();
-    for (Segment segment : this.segments) {
-      if (segment.getType() == Segment.Type.PLACEHOLDER_LABEL) {
-        labels.add(checkNotNull(segment.getPlaceholderLabel()));
+    return new LinkedHashSet<>(compile().getLabelSet());
+  }
+
+  /** Returns whether there is a placeholder labelled {@code label}, in constant time. */
+  public boolean hasPlaceholder(String label) {
+    return compile().getLabelSet().contains(label);
+  }
+
+  /**
+   * Returns the placeholder labels not in {@code labels}, in the order they first appear. A map's
+   * {@link Map#keySet()} can be checked before splicing it with {@link #spliceAll(Map)} this way.
+   */
+  public List<String> getMissingPlaceholderLabels(Set<String> labels) {
+    List<String> placeholderLabels = compile().getLabels();
+    List<String> missing = null;
+    for (String label : placeholderLabels) {
+      if (!labels.contains(label)) {
+        if (missing == null) {
+          missing = new ArrayList<>();
+        }
+        missing.add(label);
       }
     }
-    return labels;
+    return missing == null ? Collections.<String>emptyList() : missing;
+  }
+
+  /**
+   * Returns this template compiled for splicing many times, with values given by position rather
+   * than in a map. The plan is compiled once and then reused.
+   */
+  public SplicePlan compile() {
+    SplicePlan result = plan;
+    if (result == null) {
+      result = new SplicePlan(segments);
+      plan = result;
+    }
+    return result;
   }
 
   /**
@@ -208,36 +294,8 @@ public final class SpliceableSafeHtml {
    *     throwWhenMissing is true.
    */
   private SafeHtml splice(Map<String, SafeHtml> substitutions, boolean throwWhenMissing) {
-    if (this.segments.isEmpty()) {
-      return SafeHtml.EMPTY;
-    }
-    if ((this.segments.size() == 1) && (this.segments.get(0).getType() == Segment.Type.SAFE_HTML)) {
-      return checkNotNull(this.segments.get(0).getSafeHtml());
-    }
-    List<SafeHtml> htmls = new ArrayList<>();
-    for (Segment segment : this.segments) {
-      switch (segment.getType()) {
-        case SAFE_HTML:
-          {
-            htmls.add(checkNotNull(segment.getSafeHtml()));
-            break;
-          }
-        case PLACEHOLDER_LABEL:
-          {
-            // Find the provided content for this insertion point.
-            String placeholderLabel = segment.getPlaceholderLabel();
-            SafeHtml safeHtmlToInsert = substitutions.get(placeholderLabel);
-            if (safeHtmlToInsert != null) {
-              htmls.add(safeHtmlToInsert);
-            } else if (throwWhenMissing) {
-              throw new IllegalArgumentException(
-                  "Assignment missing for placeholder " + placeholderLabel);
-            }
-            break;
-          }
-      }
-    }
-    return SafeHtmls.concat(htmls);
+    SplicePlan plan = compile();
+    return plan.splice(plan.valuesOf(substitutions), throwWhenMissing);
   }
 
   /**
@@ -246,11 +304,13 @@ public final class SpliceableSafeHtml {
    */
   @Override
   public String toString() {
-    Map<String, SafeHtml> substitutions = new HashMap<>();
-    for (String label : this.getPlaceholderLabels()) {
-      substitutions.put(label, SafeHtmls.comment(label));
+    SplicePlan plan = compile();
+    List<String> labels = plan.getLabels();
+    SafeHtml[] comments = new SafeHtml[labels.size()];
+    for (int slot = 0; slot < comments.length; slot++) {
+      comments[slot] = SafeHtmls.comment(labels.get(slot));
     }
-    return spliceAll(substitutions).getSafeHtmlString();
+    return plan.splice(comments).getSafeHtmlString();
   }
 
   /**
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import static com.google.common.html.types.BuilderUtils.codePointWidthAt;
+import static com.google.common.html.types.BuilderUtils.coercedHtmlEscapeAt;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Writes text straight to UTF-8 bytes in a {@link ByteBuffer} or {@link OutputStream}, optionally
+ * coercing and HTML-escaping it on the way, so that escaping and encoding take a single pass and no
+ * intermediate {@code String} or {@code byte[]} is created per fragment.
+ *
+ * <p>Unpaired surrogates in text that is not escaped are encoded as {@code '?'}, as {@code
+ * String.getBytes(UTF_8)} does. A surrogate pair split across two writes, such as two calls to
+ * {@link #append(char)}, is still encoded as the one code point.
+ *
+ * <p>If a {@code ByteBuffer} destination runs out of room, {@link BufferOverflowException} is
+ * thrown and the buffer's position is left where it was when the writer was created.
+ */
+@GwtIncompatible("java.nio.ByteBuffer")
+@NotThreadSafe
+abstract class Utf8HtmlWriter implements Appendable {
+
+  static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /**
+   * UTF-8 encoded replacements of ASCII characters when coercing and escaping, or null for
+   * characters that are kept.
+   */
+  private static final byte[][] ESCAPED_ASCII = new byte[0x80][];
+
+  static {
+    for (char c = 0; c < 0x80; c++) {
+      String escaped = coercedHtmlEscapeAt(String.valueOf(c), 0, 1);
+      if (escaped != null) {
+        ESCAPED_ASCII[c] = escaped.getBytes(UTF_8);
+      }
+    }
+  }
+
+  /** Chunk size used when the destination can't be written in place. */
+  private static final int CHUNK_SIZE = 4096;
+
+  /** Bytes are written to {@code buf[pos]} through {@code buf[limit - 1]}. */
+  byte[] buf;
+
+  int pos;
+  int limit;
+
+  /**
+   * High surrogate at the end of the last unescaped write, to be paired with a low surrogate at
+   * the start of the next one, or 0.
+   */
+  private char pendingHighSurrogate;
+
+  /** Returns a writer that writes to {@code out}, starting at its current position. */
+  static Utf8HtmlWriter to(ByteBuffer out) {
+    return out.hasArray() && !out.isReadOnly()
+        ? new HeapByteBufferWriter(out)
+        : new ChunkedByteBufferWriter(out);
+  }
+
+  /** Returns a writer that writes to {@code out} a chunk at a time. */
+  static Utf8HtmlWriter to(OutputStream out) {
+    return new StreamWriter(out, CHUNK_SIZE);
+  }
+
+  /**
+   * Returns a writer that writes to {@code out}, buffering no more than needed for about {@code
+   * sizeHint} bytes of output.
+   */
+  static Utf8HtmlWriter to(OutputStream out, int sizeHint) {
+    return new StreamWriter(out, sizeHint);
+  }
+
+  /** Writes {@code s}, which must already be safe to emit, encoded as UTF-8. */
+  @CanIgnoreReturnValue
+  final Utf8HtmlWriter write(CharSequence s) throws IOException {
+    encode(s, 0, s.length(), false);
+    return this;
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public final Utf8HtmlWriter append(CharSequence s) throws IOException {
+    return write(s);
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public final Utf8HtmlWriter append(CharSequence s, int start, int end) throws IOException {
+    encode(s, start, end, false);
+    return this;
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public final Utf8HtmlWriter append(char c) throws IOException {
+    return write(String.valueOf(c));
+  }
+
+  /**
+   * Writes {@code s} coerced to interchange-valid Unicode and HTML-escaped, as {@link
+   * SafeHtmls#htmlEscape(String)} does, encoded as UTF-8.
+   */
+  @CanIgnoreReturnValue
+  final Utf8HtmlWriter writeEscaped(CharSequence s) throws IOException {
+    encode(s, 0, s.length(), true);
+    return this;
+  }
+
+  /**
+   * Writes {@code s} to {@code out} encoded with {@code charset}. UTF-8 is encoded a chunk at a
+   * time, without first copying all of {@code s} into a {@code byte[]}.
+   */
+  static void encodeTo(CharSequence s, OutputStream out, Charset charset) throws IOException {
+    if (UTF_8.equals(charset)) {
+      to(out, s.length()).write(s).finish();
+    } else {
+      Writer writer = new OutputStreamWriter(out, charset);
+      writer.append(s);
+      writer.flush();
+    }
+  }
+
+  /**
+   * Writes out anything still buffered, encoding a high surrogate left unpaired by the last write
+   * as {@code '?'}. For a {@code ByteBuffer} destination, this advances its position past the
+   * written bytes.
+   */
+  final void finish() throws IOException {
+    if (pendingHighSurrogate != 0) {
+      pendingHighSurrogate = 0;
+      ensureRoom(1);
+      buf[pos++] = (byte) '?';
+    }
+    flush();
+  }
+
+  /**
+   * Writes out the bytes buffered so far, keeping a pending high surrogate for the next write.
+   * For a {@code ByteBuffer} destination, this advances its position past the written bytes.
+   */
+  abstract void flush() throws IOException;
+
+  /**
+   * Makes room for at least {@code n} more bytes in {@code buf} at {@code pos}.
+   *
+   * @throws BufferOverflowException if the destination is a {@code ByteBuffer} without that room
+   */
+  abstract void makeRoom(int n) throws IOException;
+
+  private void ensureRoom(int n) throws IOException {
+    if (limit - pos < n) {
+      makeRoom(n);
+    }
+  }
+
+  private void encode(CharSequence s, int start, int end, boolean escape) throws IOException {
+    int i = start;
+    if (pendingHighSurrogate != 0 && i < end) {
+      char high = pendingHighSurrogate;
+      pendingHighSurrogate = 0;
+      if (!escape && Character.isLowSurrogate(s.charAt(i))) {
+        writeSupplementary(Character.toCodePoint(high, s.charAt(i++)));
+      } else {
+        ensureRoom(1);
+        buf[pos++] = (byte) '?';
+      }
+    }
+    while (i < end) {
+      char c = s.charAt(i);
+
+      // Fast path for runs of ASCII that need no escaping.
+      while (c < 0x80 && (!escape || ESCAPED_ASCII[c] == null)) {
+        if (pos == limit) {
+          makeRoom(1);
+        }
+        buf[pos++] = (byte) c;
+        if (++i == end) {
+          return;
+        }
+        c = s.charAt(i);
+      }
+
+      if (c < 0x80) {
+        byte[] escaped = ESCAPED_ASCII[c];
+        ensureRoom(escaped.length);
+        System.arraycopy(escaped, 0, buf, pos, escaped.length);
+        pos += escaped.length;
+        i++;
+        continue;
+      }
+      if (escape) {
+        int width = codePointWidthAt(s, i, end);
+        String replacement = coercedHtmlEscapeAt(s, i, width);
+        if (replacement != null) {
+          encode(replacement, 0, replacement.length(), false);
+          i += width;
+          continue;
+        }
+      }
+      if (c < 0x800) {
+        ensureRoom(2);
+        buf[pos++] = (byte) (0xc0 | (c >>> 6));
+        buf[pos++] = (byte) (0x80 | (c & 0x3f));
+      } else if (!Character.isSurrogate(c)) {
+        ensureRoom(3);
+        buf[pos++] = (byte) (0xe0 | (c >>> 12));
+        buf[pos++] = (byte) (0x80 | ((c >>> 6) & 0x3f));
+        buf[pos++] = (byte) (0x80 | (c & 0x3f));
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < end
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        writeSupplementary(Character.toCodePoint(c, s.charAt(++i)));
+      } else if (Character.isHighSurrogate(c) && i + 1 == end && !escape) {
+        // The low surrogate may come with the next write.
+        pendingHighSurrogate = c;
+      } else {
+        ensureRoom(1);
+        buf[pos++] = (byte) '?';
+      }
+      i++;
+    }
+  }
+
+  private void writeSupplementary(int codePoint) throws IOException {
+    ensureRoom(4);
+    buf[pos++] = (byte) (0xf0 | (codePoint >>> 18));
+    buf[pos++] = (byte) (0x80 | ((codePoint >>> 12) & 0x3f));
+    buf[pos++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3f));
+    buf[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+  }
+
+  /** Writes in place into the backing array of a heap buffer. */
+  private static final class HeapByteBufferWriter extends Utf8HtmlWriter {
+    private final ByteBuffer out;
+
+    HeapByteBufferWriter(ByteBuffer out) {
+      this.out = out;
+      this.buf = out.array();
+      this.pos = out.arrayOffset() + out.position();
+      this.limit = out.arrayOffset() + out.limit();
+    }
+
+    @Override
+    void makeRoom(int n) {
+      throw new BufferOverflowException();
+    }
+
+    @Override
+    void flush() {
+      out.position(pos - out.arrayOffset());
+    }
+  }
+
+  /** Writes to direct or read-only buffers a chunk at a time. */
+  private static final class ChunkedByteBufferWriter extends Utf8HtmlWriter {
+    private final ByteBuffer out;
+    private final int start;
+
+    ChunkedByteBufferWriter(ByteBuffer out) {
+      this.out = out;
+      this.start = out.position();
+      this.buf = new byte[Math.max(8, Math.min(CHUNK_SIZE, out.remaining()))];
+      this.limit = buf.length;
+    }
+
+    @Override
+    void makeRoom(int n) {
+      flush();
+    }
+
+    @Override
+    void flush() {
+      try {
+        out.put(buf, 0, pos);
+      } catch (BufferOverflowException e) {
+        // Earlier chunks may have been written already.
+        out.position(start);
+        throw e;
+      }
+      pos = 0;
+    }
+  }
+
+  /** Writes to a stream a chunk at a time. */
+  private static final class StreamWriter extends Utf8HtmlWriter {
+    private final OutputStream out;
+
+    StreamWriter(OutputStream out, int sizeHint) {
+      this.out = out;
+      this.buf = new byte[Math.max(8, Math.min(CHUNK_SIZE, sizeHint))];
+      this.limit = buf.length;
+    }
+
+    @Override
+    void makeRoom(int n) throws IOException {
+      flush();
+    }
+
+    @Override
+    void flush() throws IOException {
+      out.write(buf, 0, pos);
+      pos = 0;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import com.google.common.annotations.GwtIncompatible;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link BuilderPool}. */
+@GwtIncompatible("BuilderPool")
+public class BuilderPoolTest extends TestCase {
+
+  public void testReusesReleasedBuilders() {
+    BuilderPool pool = new BuilderPool(1);
+    SafeHtmlBuilder html = pool.acquireHtmlBuilder("td");
+    html.setClass("cell").escapeAndAppendContent("a");
+    pool.release(html);
+    SafeHtmlBuilder reused = pool.acquireHtmlBuilder("th");
+    assertSame(html, reused);
+    assertEquals("<th></th>", reused.build().getSafeHtmlString());
+    assertNotSame(reused, pool.acquireHtmlBuilder("td"));
+
+    SafeStyleBuilder style = pool.acquireStyleBuilder().width("1px");
+    pool.release(style);
+    assertSame(style, pool.acquireStyleBuilder());
+    assertEquals("", style.build().getSafeStyleString());
+  }
+
+  public void testDropsBuildersWhenFull() {
+    BuilderPool pool = new BuilderPool(1);
+    SafeHtmlBuilder first = new SafeHtmlBuilder("p");
+    pool.release(first);
+    pool.release(new SafeHtmlBuilder("p"));
+    assertSame(first, pool.acquireHtmlBuilder("p"));
+    assertNotSame(first, pool.acquireHtmlBuilder("p"));
+  }
+
+  public void testRejectsRepeatedRelease() {
+    BuilderPool pool = new BuilderPool(2);
+    SafeHtmlBuilder html = pool.acquireHtmlBuilder("p");
+    pool.release(html);
+    try {
+      pool.release(html);
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    // Still only pooled once.
+    assertSame(html, pool.acquireHtmlBuilder("p"));
+    assertNotSame(html, pool.acquireHtmlBuilder("p"));
+    // Acquiring it again allows releasing it again.
+    pool.release(html);
+
+    SafeStyleBuilder style = pool.acquireStyleBuilder();
+    pool.release(style);
+    try {
+      pool.release(style);
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+
+    // Builders dropped because the pool was full count as released too.
+    BuilderPool full = new BuilderPool(1);
+    full.release(new SafeHtmlBuilder("p"));
+    SafeHtmlBuilder dropped = new SafeHtmlBuilder("p");
+    full.release(dropped);
+    try {
+      full.release(dropped);
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  public void testRejectsInvalidElementNames() {
+    BuilderPool pool = new BuilderPool(1);
+    pool.release(new SafeHtmlBuilder("p"));
+    try {
+      pool.acquireHtmlBuilder("object");
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
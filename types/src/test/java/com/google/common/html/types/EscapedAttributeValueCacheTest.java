@@ -0,0 +1,120 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.GwtCompatible;
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Strings;
+import java.io.ByteArrayOutputStream;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link EscapedAttributeValueCache}. */
+@GwtCompatible
+public class EscapedAttributeValueCacheTest extends TestCase {
+
+  @Override
+  protected void tearDown() {
+    EscapedAttributeValueCache.setDefault(null);
+  }
+
+  public void testEscape() {
+    EscapedAttributeValueCache cache = new EscapedAttributeValueCache(10);
+    String escaped = cache.escape("<b>");
+    assertEquals("&lt;b&gt;", escaped);
+    assertSame(escaped, cache.escape(new String("<b>")));
+    assertEquals(1, cache.stats().hitCount());
+    assertEquals(1, cache.stats().missCount());
+
+    cache.clear();
+    assertEquals("&lt;b&gt;", cache.escape("<b>"));
+    assertEquals(2, cache.stats().missCount());
+  }
+
+  public void testDoesNotCacheLongValues() {
+    EscapedAttributeValueCache cache = new EscapedAttributeValueCache(10);
+    assertNull(
+        cache.escape(Strings.repeat("a", EscapedAttributeValueCache.MAX_CACHED_VALUE_LENGTH + 1)));
+    assertEquals(0, cache.stats().requestCount());
+
+    SafeHtmlBuilder builder =
+        new SafeHtmlBuilder("div")
+            .setTitle(Strings.repeat("&", EscapedAttributeValueCache.MAX_CACHED_VALUE_LENGTH + 1))
+            .useEscapedAttributeValueCache(cache);
+    assertEquals(
+        "<div title=\""
+            + Strings.repeat("&amp;", EscapedAttributeValueCache.MAX_CACHED_VALUE_LENGTH + 1)
+            + "\"></div>",
+        builder.build().getSafeHtmlString());
+  }
+
+  public void testEvicts() {
+    EscapedAttributeValueCache cache = new EscapedAttributeValueCache(2);
+    for (int i = 0; i < 100; i++) {
+      assertEquals("a&amp;" + i, cache.escape("a&" + i));
+    }
+    assertTrue(cache.stats().evictionCount() >= 98);
+  }
+
+  public void testSetDefault() {
+    assertNull(EscapedAttributeValueCache.getDefault());
+    EscapedAttributeValueCache cache = new EscapedAttributeValueCache(10);
+    EscapedAttributeValueCache.setDefault(cache);
+    assertSame(cache, EscapedAttributeValueCache.getDefault());
+
+    assertEquals(
+        "<a class=\"x\"></a>", new SafeHtmlBuilder("a").setClass("x").build().getSafeHtmlString());
+    assertEquals(
+        "<a class=\"x\"></a>", new SafeHtmlBuilder("a").setClass("x").build().getSafeHtmlString());
+    assertEquals(1, cache.stats().hitCount());
+
+    // A builder's own cache takes precedence.
+    EscapedAttributeValueCache other = new EscapedAttributeValueCache(10);
+    assertEquals(
+        "<a class=\"x\"></a>",
+        new SafeHtmlBuilder("a")
+            .setClass("x")
+            .useEscapedAttributeValueCache(other)
+            .build()
+            .getSafeHtmlString());
+    assertEquals(1, other.stats().missCount());
+    assertEquals(1, cache.stats().hitCount());
+
+    EscapedAttributeValueCache.setDefault(null);
+    assertEquals(
+        "<a class=\"x\"></a>", new SafeHtmlBuilder("a").setClass("x").build().getSafeHtmlString());
+    assertEquals(2, cache.stats().requestCount());
+  }
+
+  @GwtIncompatible("SafeHtmlBuilder.buildToUtf8")
+  public void testBuildToUtf8() throws Exception {
+    EscapedAttributeValueCache cache = new EscapedAttributeValueCache(10);
+    SafeHtmlBuilder builder =
+        new SafeHtmlBuilder("span")
+            .setTitle("caf\u00e9 & \ud83d\ude00")
+            .useEscapedAttributeValueCache(cache);
+    for (int i = 0; i < 2; i++) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      builder.buildToUtf8(out);
+      assertEquals(
+          "<span title=\"caf\u00e9 &amp; \ud83d\ude00\"></span>",
+          new String(out.toByteArray(), UTF_8));
+    }
+    assertEquals(1, cache.stats().hitCount());
+  }
+}
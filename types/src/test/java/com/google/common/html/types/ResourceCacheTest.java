@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link ResourceCache}. */
+@GwtIncompatible("ResourceCache")
+public class ResourceCacheTest extends TestCase {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  @Override
+  protected void setUp() {
+    ResourceCache.clear();
+  }
+
+  public void testFromResource_returnsCachedValue() throws Exception {
+    SafeHtml html = SafeHtmls.fromResource(ResourceCacheTest.class, "resources/html.html");
+    assertSame(html, SafeHtmls.fromResource(ResourceCacheTest.class, "resources/html.html"));
+    assertSame(html, SafeHtmls.fromResource("com/google/common/html/types/resources/html.html"));
+    assertSame(
+        html,
+        SafeHtmls.fromResource(
+            SafeHtml.class, "/com/google/common/html/types/resources/html.html"));
+  }
+
+  public void testFromResource_keyedByCharset() throws Exception {
+    SafeScript utf8 =
+        SafeScripts.fromResource(ResourceCacheTest.class, "resources/script.js", UTF_8);
+    SafeScript latin1 =
+        SafeScripts.fromResource(
+            ResourceCacheTest.class, "resources/script.js", Charset.forName("ISO-8859-1"));
+    assertNotSame(utf8, latin1);
+    assertEquals(utf8, latin1);
+  }
+
+  public void testPreload() throws Exception {
+    SafeStyleSheets.preloadResource(ResourceCacheTest.class, "resources/style.css", UTF_8);
+    assertSame(
+        ResourceCache.get(ResourceCacheTest.class, "resources/style.css", UTF_8),
+        ResourceCache.get("com/google/common/html/types/resources/style.css", UTF_8));
+  }
+
+  public void testPreload_notFound() throws Exception {
+    try {
+      SafeHtmls.preloadResource(ResourceCacheTest.class, "resources/missing.html");
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testResourceWeight() {
+    // Two bytes per char, plus the UTF-8 encoding.
+    assertEquals(4 * 2 + 5, new ResourceCache.Resource("caf\u00e9").weight);
+    assertEquals(2 * 2 + 4, new ResourceCache.Resource("\uD83D\uDE00").weight);
+    assertEquals(2 * 2 + 2, new ResourceCache.Resource("\uD83Dx").weight);
+  }
+
+  public void testLargeResourceIsCached() {
+    Cache<String, ResourceCache.Resource> cache = ResourceCache.newCache(1000);
+    // 400 bytes, more than a quarter of the cache.
+    ResourceCache.Resource resource = new ResourceCache.Resource(Strings.repeat("x", 400 / 3));
+    cache.put("large", resource);
+    assertSame(resource, cache.getIfPresent("large"));
+    cache.put("small", new ResourceCache.Resource("x"));
+    assertSame(resource, cache.getIfPresent("large"));
+  }
+
+  public void testLargeFileResource() throws Exception {
+    Path dir = Files.createTempDirectory("ResourceCacheTest");
+    File file = dir.resolve("large.html").toFile();
+    String text = Strings.repeat("<p>caf\u00e9</p>\n", (int) ResourceCache.MIN_MAPPED_BYTES / 8);
+    Files.write(file.toPath(), text.getBytes(UTF_8));
+
+    ClassLoader loader = new URLClassLoader(new URL[] {dir.toUri().toURL()}, null);
+    Thread thread = Thread.currentThread();
+    ClassLoader contextLoader = thread.getContextClassLoader();
+    thread.setContextClassLoader(loader);
+    try {
+      assertEquals(text, SafeHtmls.fromResource("large.html").getSafeHtmlString());
+    } finally {
+      thread.setContextClassLoader(contextLoader);
+      file.delete();
+      dir.toFile().delete();
+    }
+  }
+}
@@ -21,10 +21,16 @@ import static com.google.common.html.types.testing.HtmlConversions.newSafeStyleS
 import static com.google.common.html.types.testing.HtmlConversions.newSafeUrlForTest;
 import static com.google.common.html.types.testing.HtmlConversions.newTrustedResourceUrlForTest;
 import static com.google.common.html.types.testing.assertions.Assertions.assertClassIsNotExportable;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.annotations.GwtCompatible;
 import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Strings;
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import junit.framework.TestCase;
 
 /** Test case for {@link SafeHtmlBuilder}. */
@@ -249,6 +255,54 @@ public class SafeHtmlBuilderTest extends TestCase {
     }
   }
 
+  public void testAllowlistErrorListsElements() {
+    try {
+      new SafeHtmlBuilder("div").setSrc(SafeUrls.fromConstant("a"));
+      fail();
+    } catch (IllegalArgumentException expected) {
+      assertEquals(
+          "Attribute \"src\" with a SafeUrl value can only be used by one of the following "
+              + "elements: [audio, img, input, source, video]",
+          expected.getMessage());
+    }
+  }
+
+  public void testAllowlistsAcceptUnknownElementsOnlyForUnrestrictedAttributes() {
+    assertSameHtml("<my-el title=\"t\"></my-el>", new SafeHtmlBuilder("my-el").setTitle("t"));
+    try {
+      new SafeHtmlBuilder("my-el").setAction(SafeUrls.fromConstant("a"));
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testValidatesElementNames() {
+    assertSameHtml("<my-el2></my-el2>", new SafeHtmlBuilder("my-el2"));
+    for (String name : new String[] {"", "a b", "\u00e9", "div>", "a_b", "Div"}) {
+      try {
+        new SafeHtmlBuilder(name);
+        fail("Element name \"" + name + "\" shouldn't be allowed.");
+      } catch (IllegalArgumentException expected) {
+      }
+    }
+  }
+
+  public void testValidatesDataAttributeNames() {
+    assertSameHtml(
+        "<p data-Foo-bar=\"a\" data--=\"b\"></p>",
+        new SafeHtmlBuilder("p")
+            .setDataAttribute("data-Foo-bar", "a")
+            .setDataAttribute("data--", "b"));
+    String[] invalidNames = {"data-", "data", "data-1", "data-a b", "Data-a", "data-\u00e9"};
+    for (String name : invalidNames) {
+      try {
+        new SafeHtmlBuilder("p").setDataAttribute(name, "");
+        fail("Data attribute name \"" + name + "\" shouldn't be allowed.");
+      } catch (IllegalArgumentException expected) {
+      }
+    }
+  }
+
   public void testDisallowsUnsafeTagNames() {
     try {
       new SafeHtmlBuilder("scRipt");
@@ -464,6 +518,151 @@ public class SafeHtmlBuilderTest extends TestCase {
         new SafeHtmlBuilder("script").setAsync(SafeHtmlBuilder.AsyncValue.ASYNC));
   }
 
+  public void testCoercesAttributeValuesToInterchangeValid() {
+    assertSameHtml(
+        "<div title=\"a\uFFFD&lt;\uFFFD\"></div>",
+        new SafeHtmlBuilder("div").setTitle("a\uD800<\u0000"));
+  }
+
+  public void testKeepsAttributesInInsertionOrder() {
+    assertSameHtml(
+        "<div id=\"a\" class=\"x\" title=\"&lt;\" hidden=\"hidden\" lang=\"en\" role=\"main\">"
+            + "</div>",
+        new SafeHtmlBuilder("div")
+            .setId("a")
+            .setClass("b")
+            .setTitle("<")
+            .setHidden("hidden")
+            .setLang("en")
+            .setRole("main")
+            .setClass("x"));
+  }
+
+  public void testEscapesTextContentAtBuild() {
+    // Around the length at which build() stops copying contents into a single string.
+    for (int n = 40; n < 80; n++) {
+      String text = Strings.repeat("<", n);
+      assertSameHtml(
+          "<p>" + Strings.repeat("&lt;", n) + "<br></p>",
+          new SafeHtmlBuilder("p").escapeAndAppendContent(text).appendContent(SafeHtml.BR));
+    }
+  }
+
+  public void testReset() {
+    SafeHtmlBuilder builder =
+        new SafeHtmlBuilder("link")
+            .setRel("icon")
+            .setHref(newSafeUrlForTest("a"))
+            .useSlashOnVoid();
+    assertSameHtml("<link rel=\"icon\" href=\"a\"/>", builder);
+
+    assertSameHtml("<link>", builder.reset());
+    // The SafeUrl href is forgotten too, so it doesn't restrict rel.
+    assertSameHtml("<link rel=\"stylesheet\">", builder.setRel("stylesheet"));
+
+    assertSameHtml("<p>a</p>", builder.reset("p").escapeAndAppendContent("a"));
+    try {
+      builder.reset("script").appendContent(SafeHtml.BR);
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    try {
+      builder.reset("object");
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    assertSameHtml("<script></script>", builder);
+  }
+
+  public void testUseEscapedAttributeValueCache() throws Exception {
+    EscapedAttributeValueCache cache = new EscapedAttributeValueCache(10);
+    SafeHtmlBuilder builder =
+        new SafeHtmlBuilder("td")
+            .setClass("a&b")
+            .setTitle("\ufffe")
+            .useEscapedAttributeValueCache(cache)
+            .escapeAndAppendContent("<");
+    String expected = "<td class=\"a&amp;b\" title=\"\ufffd\">&lt;</td>";
+    assertSameHtml(expected, builder);
+    assertEquals(2, cache.stats().missCount());
+    StringBuilder sb = new StringBuilder();
+    builder.buildTo(sb);
+    assertEquals(expected, sb.toString());
+    assertEquals(2, cache.stats().hitCount());
+
+    // Values set again are looked up again.
+    assertSameHtml(
+        "<td class=\"a&amp;b\" title=\"&quot;\">&lt;</td>", builder.setTitle("\""));
+    assertEquals(3, cache.stats().missCount());
+
+    builder.reset().setClass("a&b");
+    assertSameHtml("<td class=\"a&amp;b\"></td>", builder);
+    assertEquals(3, cache.stats().hitCount());
+  }
+
+  public void testBuildLinksToLargeContents() throws Exception {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      text.append("caf\u00e9 <");
+    }
+    SafeHtml content = SafeHtmls.htmlEscape(text.toString());
+    SafeHtml html =
+        new SafeHtmlBuilder("p").appendContent(content, SafeHtml.BR, content).build();
+    String expected =
+        "<p>" + content.getSafeHtmlString() + "<br>" + content.getSafeHtmlString() + "</p>";
+    StringBuilder sb = new StringBuilder();
+    html.writeTo(sb);
+    assertEquals(expected, sb.toString());
+    assertEquals(expected, html.getSafeHtmlString());
+  }
+
+  public void testBuildTo() throws Exception {
+    SafeHtmlBuilder builder =
+        new SafeHtmlBuilder("a")
+            .setTitle("\"Café\" & 丄\uD800𐒖")
+            .setHref(newSafeUrlForTest("https://example.com/?a=1&b=2"))
+            .appendContent(newSafeHtmlForTest("<b>x</b>"), SafeHtml.BR);
+    StringBuilder sb = new StringBuilder("prefix");
+    builder.buildTo(sb);
+    assertEquals(
+        "prefix<a title=\"&quot;Café&quot; &amp; 丄�𐒖\" "
+            + "href=\"https://example.com/?a=1&amp;b=2\"><b>x</b><br></a>",
+        sb.toString());
+
+    sb.setLength(0);
+    SafeHtmlBuilder img = new SafeHtmlBuilder("img").setAlt("<").useSlashOnVoid();
+    img.buildTo(sb);
+    assertEquals("<img alt=\"&lt;\"/>", sb.toString());
+    assertEquals(sb.toString(), img.build().getSafeHtmlString());
+  }
+
+  @GwtIncompatible("SafeHtmlBuilder.buildToUtf8")
+  public void testBuildToUtf8() throws Exception {
+    SafeHtmlBuilder builder =
+        new SafeHtmlBuilder("a")
+            .setTitle("\"Café\" & 丄\uD800")
+            .setHref(newSafeUrlForTest("https://example.com/?a=1&b=2"))
+            .appendContent(newSafeHtmlForTest("<b>𐒖</b>"));
+    byte[] expected = builder.build().getSafeHtmlString().getBytes(UTF_8);
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    builder.buildToUtf8(stream);
+    assertTrue(Arrays.equals(expected, stream.toByteArray()));
+
+    ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+    builder.buildToUtf8(buffer);
+    assertEquals(expected.length, buffer.position());
+    assertTrue(Arrays.equals(expected, buffer.array()));
+
+    ByteBuffer tooSmall = ByteBuffer.allocateDirect(expected.length - 1);
+    try {
+      builder.buildToUtf8(tooSmall);
+      fail("Expected BufferOverflowException");
+    } catch (BufferOverflowException expectedException) {
+    }
+    assertEquals(0, tooSmall.position());
+  }
+
   private static void assertSameHtml(String expected, SafeHtmlBuilder builder) {
     assertEquals(expected, builder.build().getSafeHtmlString());
   }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import static com.google.common.html.types.testing.HtmlConversions.newSafeHtmlForTest;
+
+import com.google.common.annotations.GwtCompatible;
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Function;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link SafeHtmlTableRenderer}. */
+@GwtCompatible
+public class SafeHtmlTableRendererTest extends TestCase {
+
+  private static final Function<Integer, String> NAME =
+      new Function<Integer, String>() {
+        @Override
+        public String apply(Integer row) {
+          return "<" + row + ">";
+        }
+      };
+
+  private static final Function<Integer, SafeHtml> LINK =
+      new Function<Integer, SafeHtml>() {
+        @Override
+        public SafeHtml apply(Integer row) {
+          return newSafeHtmlForTest("<a href=\"/" + row + "\">" + row + "</a>");
+        }
+      };
+
+  private static final SafeHtmlTableRenderer<Integer> RENDERER =
+      new SafeHtmlTableRenderer.Builder<Integer>(new SafeHtmlBuilder("tr").setClass("row"))
+          .addTextColumn(new SafeHtmlBuilder("td").setClass("name"), NAME)
+          .addHtmlColumn(new SafeHtmlBuilder("td").escapeAndAppendContent("#"), LINK)
+          .build();
+
+  private static String expectedRow(int row) {
+    return "<tr class=\"row\"><td class=\"name\">&lt;"
+        + row
+        + "&gt;</td><td>#<a href=\"/"
+        + row
+        + "\">"
+        + row
+        + "</a></td></tr>";
+  }
+
+  public void testRender() throws Exception {
+    assertEquals(
+        expectedRow(1) + expectedRow(2), RENDERER.render(Arrays.asList(1, 2)).getSafeHtmlString());
+    assertEquals("", RENDERER.render(new ArrayList<Integer>()).getSafeHtmlString());
+
+    StringBuilder sb = new StringBuilder();
+    RENDERER.renderTo(Arrays.asList(3).iterator(), sb);
+    assertEquals(expectedRow(3), sb.toString());
+  }
+
+  public void testNoColumns() {
+    SafeHtmlTableRenderer<Integer> renderer =
+        new SafeHtmlTableRenderer.Builder<Integer>(new SafeHtmlBuilder("tr")).build();
+    assertEquals("<tr></tr><tr></tr>", renderer.render(Arrays.asList(1, 2)).getSafeHtmlString());
+  }
+
+  public void testBuilderIsReadWhenGiven() {
+    SafeHtmlBuilder cell = new SafeHtmlBuilder("td");
+    SafeHtmlTableRenderer.Builder<Integer> builder =
+        new SafeHtmlTableRenderer.Builder<Integer>(new SafeHtmlBuilder("tr"))
+            .addTextColumn(cell, NAME);
+    cell.setClass("ignored");
+    assertEquals(
+        "<tr><td>&lt;1&gt;</td></tr>",
+        builder.build().render(Arrays.asList(1)).getSafeHtmlString());
+  }
+
+  public void testRejectsElementsWithoutHtmlContent() {
+    try {
+      new SafeHtmlTableRenderer.Builder<Integer>(new SafeHtmlBuilder("br"));
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    try {
+      new SafeHtmlTableRenderer.Builder<Integer>(new SafeHtmlBuilder("tr"))
+          .addTextColumn(new SafeHtmlBuilder("script"), NAME);
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  public void testNullContent() {
+    SafeHtmlTableRenderer<Integer> renderer =
+        new SafeHtmlTableRenderer.Builder<Integer>(new SafeHtmlBuilder("tr"))
+            .addTextColumn(
+                new SafeHtmlBuilder("td"),
+                new Function<Integer, String>() {
+                  @Override
+                  public String apply(Integer row) {
+                    return null;
+                  }
+                })
+            .build();
+    try {
+      renderer.render(Arrays.asList(1));
+      fail();
+    } catch (NullPointerException expected) {
+    }
+  }
+
+  @GwtIncompatible("SafeHtmlTableRenderer.renderTo(..., Executor, int)")
+  public void testRenderInParallelKeepsOrder() throws Exception {
+    List<Integer> rows = new ArrayList<>();
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      rows.add(i);
+      expected.append(expectedRow(i));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      for (int parallelism : new int[] {1, 3, 8}) {
+        StringBuilder sb = new StringBuilder();
+        RENDERER.renderTo(rows.iterator(), sb, executor, parallelism);
+        assertEquals(expected.toString(), sb.toString());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @GwtIncompatible("SafeHtmlTableRenderer.renderTo(..., Executor, int)")
+  public void testRenderInParallelPropagatesFailures() throws Exception {
+    SafeHtmlTableRenderer<Integer> renderer =
+        new SafeHtmlTableRenderer.Builder<Integer>(new SafeHtmlBuilder("tr"))
+            .addTextColumn(
+                new SafeHtmlBuilder("td"),
+                new Function<Integer, String>() {
+                  @Override
+                  public String apply(Integer row) {
+                    if (row == 500) {
+                      throw new IllegalArgumentException("bad row");
+                    }
+                    return "";
+                  }
+                })
+            .build();
+    List<Integer> rows = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      rows.add(i);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      renderer.renderTo(rows.iterator(), new StringBuilder(), executor, 2);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      assertEquals("bad row", expected.getMessage());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.html.types.SafeHtmlTemplate.Slot;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link SafeHtmlTemplate}. */
+@GwtIncompatible("SafeHtmlTemplate")
+public class SafeHtmlTemplateTest extends TestCase {
+
+  public void testStamp_matchesBuilder() {
+    Slot<SafeUrl> href = SafeHtmlTemplate.safeUrlSlot("href");
+    Slot<String> title = SafeHtmlTemplate.stringSlot("title");
+    Slot<SafeHtml> label = SafeHtmlTemplate.safeHtmlSlot("label");
+    SafeHtmlTemplate template =
+        SafeHtmlTemplate.compile(
+            new SafeHtmlBuilder("a")
+                .setClass("nav \"x\"")
+                .setHref(href.placeholder())
+                .setTitle(title.placeholder())
+                .setDataAttribute("data-title", title.placeholder())
+                .appendContent(SafeHtmls.htmlEscape("<"), label.placeholder(), SafeHtml.BR),
+            href,
+            title,
+            label);
+
+    SafeUrl url = SafeUrls.sanitize("https://example.com/?a=1&b=2");
+    SafeHtml html = SafeHtmls.htmlEscape("Café & co");
+    String text = "\"Hi\" <there>\uD800";
+    SafeHtml expected =
+        new SafeHtmlBuilder("a")
+            .setClass("nav \"x\"")
+            .setHref(url)
+            .setTitle(text)
+            .setDataAttribute("data-title", text)
+            .appendContent(SafeHtmls.htmlEscape("<"), html, SafeHtml.BR)
+            .build();
+    assertEquals(
+        expected, template.stamp().set(href, url).set(title, text).set(label, html).build());
+  }
+
+  public void testStamp_voidElementAttributeSlots() {
+    Slot<TrustedResourceUrl> src = SafeHtmlTemplate.trustedResourceUrlSlot("src");
+    Slot<SafeStyle> style = SafeHtmlTemplate.safeStyleSlot("style");
+    SafeHtmlTemplate template =
+        SafeHtmlTemplate.compile(
+            new SafeHtmlBuilder("img")
+                .setSrc(src.placeholder())
+                .setStyle(style.placeholder())
+                .useSlashOnVoid(),
+            src,
+            style);
+
+    TrustedResourceUrl url = TrustedResourceUrls.fromConstant("/a.png?x=1&y=2");
+    SafeStyle css = SafeStyles.fromConstant("width:1px;");
+    assertEquals(
+        new SafeHtmlBuilder("img").setSrc(url).setStyle(css).useSlashOnVoid().build(),
+        template.stamp().set(src, url).set(style, css).build());
+  }
+
+  public void testStamp_missingValue() {
+    Slot<String> title = SafeHtmlTemplate.stringSlot("title");
+    SafeHtmlTemplate template =
+        SafeHtmlTemplate.compile(new SafeHtmlBuilder("p").setTitle(title.placeholder()), title);
+    try {
+      template.stamp().build();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  public void testStamp_slotOfOtherTemplate() {
+    Slot<String> title = SafeHtmlTemplate.stringSlot("title");
+    SafeHtmlTemplate template = SafeHtmlTemplate.compile(new SafeHtmlBuilder("p"));
+    try {
+      template.stamp().set(title, "x");
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testCompile_checksStillRun() {
+    Slot<SafeUrl> action = SafeHtmlTemplate.safeUrlSlot("action");
+    try {
+      SafeHtmlTemplate.compile(new SafeHtmlBuilder("div").setAction(action.placeholder()), action);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testCompile_unusedSlot() {
+    Slot<String> title = SafeHtmlTemplate.stringSlot("title");
+    try {
+      SafeHtmlTemplate.compile(
+          new SafeHtmlBuilder("p").setTitle(title.placeholder()).setTitle("constant"), title);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testPlaceholder_notPassedOnByConversions() {
+    Slot<String> text = SafeHtmlTemplate.stringSlot("text");
+    assertNotSame(text.placeholder(), SafeHtmls.htmlEscape(text.placeholder()).getSafeHtmlString());
+    assertNotSame(text.placeholder(), SafeUrls.sanitize(text.placeholder()).getSafeUrlString());
+  }
+
+  public void testPlaceholder_isInnocuous() {
+    String name = "<img src=x onerror=alert(1)>";
+    assertEquals("", SafeHtmlTemplate.safeHtmlSlot(name).placeholder().getSafeHtmlString());
+    assertEquals(
+        SafeUrl.INNOCUOUS_STRING,
+        SafeHtmlTemplate.safeUrlSlot(name).placeholder().getSafeUrlString());
+    assertEquals(
+        SafeUrl.INNOCUOUS_STRING,
+        SafeHtmlTemplate.trustedResourceUrlSlot(name)
+            .placeholder()
+            .getTrustedResourceUrlString());
+    assertEquals("", SafeHtmlTemplate.safeStyleSlot(name).placeholder().getSafeStyleString());
+  }
+
+  public void testStamp_slotsOfTheSameType() {
+    Slot<SafeUrl> src = SafeHtmlTemplate.safeUrlSlot("src");
+    Slot<SafeUrl> poster = SafeHtmlTemplate.safeUrlSlot("poster");
+    SafeHtmlTemplate template =
+        SafeHtmlTemplate.compile(
+            new SafeHtmlBuilder("video").setSrc(src.placeholder()).setPoster(poster.placeholder()),
+            src,
+            poster);
+
+    SafeUrl video = SafeUrls.sanitize("/v.mp4");
+    SafeUrl image = SafeUrls.sanitize("/p.png");
+    assertEquals(
+        new SafeHtmlBuilder("video").setSrc(video).setPoster(image).build(),
+        template.stamp().set(src, video).set(poster, image).build());
+  }
+
+  public void testCompile_relSlotOnLink() {
+    Slot<String> rel = SafeHtmlTemplate.stringSlot("rel");
+    try {
+      SafeHtmlTemplate.compile(new SafeHtmlBuilder("link").setRel(rel.placeholder()), rel);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
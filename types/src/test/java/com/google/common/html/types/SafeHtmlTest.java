@@ -19,7 +19,12 @@ package com.google.common.html.types;
 import static com.google.common.html.types.testing.HtmlConversions.newSafeHtmlForTest;
 
 import com.google.common.annotations.GwtCompatible;
+import com.google.common.annotations.GwtIncompatible;
 import com.google.common.testing.EqualsTester;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import junit.framework.TestCase;
 
 /** Unit tests for {@link SafeHtml}. */
@@ -45,4 +50,110 @@ public class SafeHtmlTest extends TestCase {
             newSafeHtmlForTest("<b>Hello World</b> Two"))
         .testEquals();
   }
+
+  public void testEqualsAndHashCode_ropes() {
+    String half = repeat("<b>Hello</b>", 30);
+    SafeHtml flat = newSafeHtmlForTest(half + half);
+    SafeHtml rope = SafeHtmls.concat(newSafeHtmlForTest(half), newSafeHtmlForTest(half));
+    new EqualsTester()
+        .addEqualityGroup(
+            flat,
+            rope,
+            SafeHtmls.concat(
+                newSafeHtmlForTest(half.substring(0, 7)),
+                SafeHtmls.concat(
+                    newSafeHtmlForTest(half.substring(7)), newSafeHtmlForTest(half))))
+        .addEqualityGroup(SafeHtmls.concat(rope, SafeHtml.BR))
+        .testEquals();
+  }
+
+  public void testGetSafeHtmlString_deeplyNestedRope() {
+    SafeHtml fragment = newSafeHtmlForTest("xxx");
+    SafeHtml html = SafeHtml.EMPTY;
+    for (int i = 0; i < 100000; i++) {
+      html = SafeHtmls.concat(html, SafeHtml.BR, fragment);
+    }
+    String result = html.getSafeHtmlString();
+    assertEquals(100000 * 7, result.length());
+    assertTrue(result.startsWith("<br>xxx"));
+    assertSame(result, html.getSafeHtmlString());
+  }
+
+  private static String repeat(String s, int n) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < n; i++) {
+      sb.append(s);
+    }
+    return sb.toString();
+  }
+
+  public void testWriteTo() throws Exception {
+    StringBuilder sb = new StringBuilder("x");
+    newSafeHtmlForTest("<b>Hello World</b>").writeTo(sb);
+    assertEquals("x<b>Hello World</b>", sb.toString());
+  }
+
+  public void testWriteTo_rope() throws Exception {
+    String half = repeat("<b>Caf\u00e9</b>", 30);
+    SafeHtml rope =
+        SafeHtmls.concat(
+            newSafeHtmlForTest(half), SafeHtmls.concat(newSafeHtmlForTest(half), SafeHtml.BR));
+    StringBuilder sb = new StringBuilder();
+    rope.writeTo(sb);
+    assertEquals(half + half + "<br>", sb.toString());
+  }
+
+  @GwtIncompatible("java.io.OutputStream")
+  public void testWriteTo_outputStream() throws Exception {
+    String half = repeat("<b>Caf\u00e9 \uD83D\uDE00</b>", 30);
+    SafeHtml rope = SafeHtmls.concat(newSafeHtmlForTest(half), newSafeHtmlForTest(half));
+    for (String charsetName : new String[] {"UTF-8", "UTF-16BE", "ISO-8859-1"}) {
+      Charset charset = Charset.forName(charsetName);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      rope.writeTo(out, charset);
+      assertTrue(charsetName, Arrays.equals((half + half).getBytes(charset), out.toByteArray()));
+    }
+  }
+
+  @GwtIncompatible("java.io.OutputStream")
+  public void testWriteTo_outputStream_splitSurrogatePair() throws Exception {
+    String html = repeat("<b>\uD83D\uDE00</b>", 30) + "\uD83D";
+    byte[] expected = html.getBytes("UTF-8");
+    // Each part of the rope ends in the middle of a surrogate pair.
+    SafeHtml rope =
+        SafeHtmls.concat(
+            newSafeHtmlForTest(html.substring(0, 4)), newSafeHtmlForTest(html.substring(4)));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    rope.writeTo(out, Charset.forName("UTF-8"));
+    assertTrue(Arrays.equals(expected, out.toByteArray()));
+
+    out.reset();
+    Utf8HtmlWriter writer = Utf8HtmlWriter.to(out, 8);
+    for (int i = 0; i < html.length(); i++) {
+      writer.append(html.charAt(i));
+    }
+    writer.finish();
+    assertTrue(Arrays.equals(expected, out.toByteArray()));
+  }
+
+  @GwtIncompatible("java.nio.ByteBuffer")
+  public void testToUtf8Bytes() throws Exception {
+    SafeHtml value =
+        SafeHtmls.concat(newSafeHtmlForTest(repeat("<b>caf\u00e9</b>", 30)), SafeHtml.BR);
+    byte[] expected = value.getSafeHtmlString().getBytes("UTF-8");
+    byte[] bytes = value.toUtf8Bytes();
+    assertTrue(Arrays.equals(expected, bytes));
+    bytes[0] = 0;
+    assertTrue(Arrays.equals(expected, value.toUtf8Bytes()));
+
+    ByteBuffer buffer = value.utf8ByteBuffer();
+    assertTrue(buffer.isReadOnly());
+    assertEquals(ByteBuffer.wrap(expected), buffer);
+    buffer.position(buffer.limit());
+    assertEquals(ByteBuffer.wrap(expected), value.utf8ByteBuffer());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    value.writeTo(out, Charset.forName("UTF-8"));
+    assertTrue(Arrays.equals(expected, out.toByteArray()));
+  }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import static com.google.common.html.types.testing.HtmlConversions.newSafeHtmlForTest;
+import static com.google.common.html.types.testing.HtmlConversions.newSafeScriptForTest;
+import static com.google.common.html.types.testing.HtmlConversions.newSafeStyleSheetForTest;
+import static com.google.common.html.types.testing.HtmlConversions.newSafeUrlForTest;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.GwtIncompatible;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link SafeHtmlWriter}. */
+@GwtIncompatible("SafeHtmlWriter")
+public class SafeHtmlWriterTest extends TestCase {
+
+  public void testWritesNestedElements() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    SafeHtmlWriter writer = new SafeHtmlWriter(sb);
+    writer
+        .writeContent(SafeHtml.DOCTYPE)
+        .openElement(new SafeHtmlBuilder("table").setClass("report"))
+        .openElement(new SafeHtmlBuilder("tr"))
+        .writeElement(new SafeHtmlBuilder("td").escapeAndAppendContent("a < b"))
+        .openElement(new SafeHtmlBuilder("td").escapeAndAppendContent("x"))
+        .writeContent(newSafeHtmlForTest("<b>y</b>"))
+        .escapeAndWriteContent("&\uD800")
+        .openElement(new SafeHtmlBuilder("br"))
+        .closeElement()
+        .closeElement();
+    assertEquals(1, writer.getDepth());
+    writer.closeElement();
+    writer.close();
+    assertEquals(
+        "<!DOCTYPE html><table class=\"report\"><tr><td>a &lt; b</td>"
+            + "<td>x<b>y</b>&amp;�<br></td></tr></table>",
+        sb.toString());
+  }
+
+  public void testOpenElementChecksAttributes() throws Exception {
+    SafeHtmlWriter writer = new SafeHtmlWriter(new StringBuilder());
+    try {
+      writer.openElement(
+          new SafeHtmlBuilder("link").setRel("stylesheet").setHref(newSafeUrlForTest("a")));
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testScriptAndStyleContents() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    SafeHtmlWriter writer = new SafeHtmlWriter(sb);
+    writer.openElement(new SafeHtmlBuilder("script"));
+    try {
+      writer.writeContent(newSafeHtmlForTest("<b>"));
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    try {
+      writer.escapeAndWriteContent("a");
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    try {
+      writer.openElement(new SafeHtmlBuilder("b"));
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    try {
+      writer.writeStyleContent(newSafeStyleSheetForTest("a{}"));
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    writer.writeScriptContent(newSafeScriptForTest("a();")).closeElement();
+
+    writer.openElement(new SafeHtmlBuilder("style"));
+    try {
+      writer.writeScriptContent(newSafeScriptForTest("a();"));
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    writer.writeStyleContent(newSafeStyleSheetForTest("a{}")).closeElement();
+    assertEquals("<script>a();</script><style>a{}</style>", sb.toString());
+  }
+
+  public void testScriptContentRequiresOpenElement() throws Exception {
+    SafeHtmlWriter writer = new SafeHtmlWriter(new StringBuilder());
+    try {
+      writer.writeScriptContent(newSafeScriptForTest("a();"));
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    try {
+      writer.closeElement();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  public void testVoidElementsAreNotLeftOpen() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    SafeHtmlWriter writer = new SafeHtmlWriter(sb);
+    writer.openElement(new SafeHtmlBuilder("img").setAlt("a"));
+    assertEquals(0, writer.getDepth());
+    assertEquals("<img alt=\"a\">", sb.toString());
+  }
+
+  public void testCloseFailsIfElementsAreOpen() throws Exception {
+    StringWriter out = new StringWriter();
+    SafeHtmlWriter writer = new SafeHtmlWriter(out);
+    writer.openElement(new SafeHtmlBuilder("div"));
+    try {
+      writer.close();
+      fail();
+    } catch (IllegalStateException expected) {
+      assertEquals("Element \"div\" was not closed.", expected.getMessage());
+    }
+  }
+
+  public void testWritesToOutputStream() throws Exception {
+    for (Charset charset : new Charset[] {UTF_8, Charset.forName("UTF-16")}) {
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      try (SafeHtmlWriter writer = new SafeHtmlWriter(stream, charset)) {
+        writer.openElement(new SafeHtmlBuilder("ul"));
+        for (int i = 0; i < 10000; i++) {
+          writer
+              .openElement(new SafeHtmlBuilder("li").setTitle("\"café\""))
+              .escapeAndWriteContent("丄 < 𐒖")
+              .closeElement();
+        }
+        writer.closeElement();
+      }
+
+      StringBuilder expected = new StringBuilder("<ul>");
+      for (int i = 0; i < 10000; i++) {
+        expected.append("<li title=\"&quot;café&quot;\">丄 &lt; 𐒖</li>");
+      }
+      expected.append("</ul>");
+      assertEquals(expected.toString(), new String(stream.toByteArray(), charset));
+    }
+  }
+}
@@ -18,11 +18,18 @@ package com.google.common.html.types;
 
 import static com.google.common.html.types.testing.HtmlConversions.newSafeHtmlForTest;
 import static com.google.common.html.types.testing.assertions.Assertions.assertClassIsNotExportable;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.annotations.GwtCompatible;
 import com.google.common.annotations.GwtIncompatible;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import junit.framework.TestCase;
 
 /** Unit tests for {@link SafeHtmls}. */
@@ -177,6 +184,144 @@ public class SafeHtmlsTest extends TestCase {
     assertEquals("&lt;3", SafeHtmls.concat(htmls).getSafeHtmlString());
   }
 
+  public void testHtmlEscape() {
+    assertEquals("", SafeHtmls.htmlEscape("").getSafeHtmlString());
+    assertEquals(
+        "&lt;a href=&quot;x&quot;&gt;Tom &amp; Jerry&#39;s&lt;/a&gt;",
+        SafeHtmls.htmlEscape("<a href=\"x\">Tom & Jerry's</a>").getSafeHtmlString());
+    assertEquals("&amp;&amp;", SafeHtmls.htmlEscape("&&").getSafeHtmlString());
+  }
+
+  public void testHtmlEscapeReturnsInputWhenNothingToEscape() {
+    String text = "nothing to escape 丄";
+    assertSame(text, SafeHtmls.htmlEscape(text).getSafeHtmlString());
+  }
+
+  public void testHtmlEscapeTo() throws Exception {
+    StringBuilder sb = new StringBuilder("prefix:");
+    SafeHtmls.htmlEscapeTo("<a href=\"x\">Tom & Jerry's</a>", sb);
+    assertEquals(
+        "prefix:&lt;a href=&quot;x&quot;&gt;Tom &amp; Jerry&#39;s&lt;/a&gt;", sb.toString());
+
+    sb.setLength(0);
+    SafeHtmls.htmlEscapeTo("", sb);
+    SafeHtmls.htmlEscapeTo("plain", sb);
+    SafeHtmls.htmlEscapeTo(new StringBuilder("<<"), sb);
+    assertEquals("plain&lt;&lt;", sb.toString());
+  }
+
+  @GwtIncompatible("SafeHtmls.htmlEscapeTo(char[], int, int, Appendable)")
+  public void testHtmlEscapeToCharRange() throws Exception {
+    char[] text = "xx<b>&'\"yy".toCharArray();
+    StringWriter out = new StringWriter();
+    SafeHtmls.htmlEscapeTo(text, 2, 6, out);
+    assertEquals("&lt;b&gt;&amp;&#39;&quot;", out.toString());
+
+    try {
+      SafeHtmls.htmlEscapeTo(text, 8, 4, out);
+      fail("Expected IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException expected) {
+    }
+  }
+
+  @GwtIncompatible("SafeHtmls.htmlEscapeToUtf8")
+  public void testHtmlEscapeToUtf8() throws Exception {
+    String text = "<p title=\"x\">Tom & Jerry's \u4E04\u00EA\uD801\uDC96t</p>";
+    byte[] expected = SafeHtmls.htmlEscape(text).getSafeHtmlString().getBytes(UTF_8);
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    SafeHtmls.htmlEscapeToUtf8(text, stream);
+    assertTrue(Arrays.equals(expected, stream.toByteArray()));
+
+    ByteBuffer heap = ByteBuffer.allocate(expected.length + 2);
+    heap.put((byte) '#');
+    SafeHtmls.htmlEscapeToUtf8(text, heap);
+    assertEquals(expected.length + 1, heap.position());
+    heap.flip().position(1);
+    assertEquals(ByteBuffer.wrap(expected), heap);
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(expected.length);
+    SafeHtmls.htmlEscapeToUtf8(text, direct);
+    direct.flip();
+    assertEquals(ByteBuffer.wrap(expected), direct);
+  }
+
+  @GwtIncompatible("SafeHtmls.htmlEscapeToUtf8")
+  public void testHtmlEscapeToUtf8LongText() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      sb.append("<\u4E04 & \uD801\uDC96>");
+    }
+    String text = sb.toString();
+    byte[] expected = SafeHtmls.htmlEscape(text).getSafeHtmlString().getBytes(UTF_8);
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    SafeHtmls.htmlEscapeToUtf8(text, stream);
+    assertTrue(Arrays.equals(expected, stream.toByteArray()));
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(expected.length);
+    SafeHtmls.htmlEscapeToUtf8(text, direct);
+    direct.flip();
+    assertEquals(ByteBuffer.wrap(expected), direct);
+
+    ByteBuffer tooSmall = ByteBuffer.allocateDirect(expected.length - 1);
+    try {
+      SafeHtmls.htmlEscapeToUtf8(text, tooSmall);
+      fail("Expected BufferOverflowException");
+    } catch (BufferOverflowException expectedException) {
+    }
+    assertEquals(0, tooSmall.position());
+  }
+
+  @GwtIncompatible("SafeHtmls.htmlEscapeToUtf8")
+  public void testHtmlEscapeToUtf8Overflow() {
+    ByteBuffer heap = ByteBuffer.allocate(4);
+    try {
+      SafeHtmls.htmlEscapeToUtf8("<<", heap);
+      fail("Expected BufferOverflowException");
+    } catch (BufferOverflowException expected) {
+    }
+    assertEquals(0, heap.position());
+  }
+
+  @GwtIncompatible("SafeHtmls.htmlEscapeToUtf8")
+  public void testHtmlEscapeToUtf8CoercesToInterchangeValid() throws Exception {
+    String text = "a\uD801b\uDC96\u0000\uFFFF<";
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    SafeHtmls.htmlEscapeToUtf8(text, stream);
+    assertTrue(
+        Arrays.equals(
+            SafeHtmls.htmlEscape(text).getSafeHtmlString().getBytes(UTF_8), stream.toByteArray()));
+  }
+
+  public void testHtmlEscapeCoercesToInterchangeValid() {
+    // Unpaired surrogates, controls other than tab, LF and CR, and non-characters are replaced.
+    assertEquals(
+        "a\uFFFDb\uFFFDc\uFFFD\uFFFD\uFFFD\t\n\r",
+        SafeHtmls.htmlEscape("a\uD800b\uDC00c\u0000\u000C\u0085\t\n\r").getSafeHtmlString());
+    assertEquals(
+        "\uFFFD&lt;\uFFFD&amp;\uFFFD",
+        SafeHtmls.htmlEscape("\uFDD0<\uFFFE&\uDBFF\uDFFF").getSafeHtmlString());
+    // Valid supplementary code points and private use characters are kept.
+    String valid = "\uD801\uDC96\uE000\uFFFD\u00A0";
+    assertSame(valid, SafeHtmls.htmlEscape(valid).getSafeHtmlString());
+  }
+
+  public void testHtmlEscapeReplacesFormFeedDelAndC1Controls() {
+    // These were kept as is before escaping also coerced to interchange-valid Unicode.
+    assertEquals(
+        "a\uFFFDb\uFFFDc\uFFFDd\uFFFDe\u00A0",
+        SafeHtmls.htmlEscape("a\u000Cb\u007Fc\u0080d\u009Fe\u00A0").getSafeHtmlString());
+  }
+
+  public void testHtmlEscapeToCoercesToInterchangeValid() throws Exception {
+    String text = "<\uD800\u0001\uD83D\uDE00\uFDEF>";
+    StringBuilder sb = new StringBuilder();
+    SafeHtmls.htmlEscapeTo(text, sb);
+    assertEquals("&lt;\uFFFD\uFFFD\uD83D\uDE00\uFFFD&gt;", sb.toString());
+    assertEquals(SafeHtmls.htmlEscape(text).getSafeHtmlString(), sb.toString());
+  }
+
   public void testHtmlEscapePreservingNewlines() {
     assertEquals(
         "a<br>&lt;3<br>", SafeHtmls.htmlEscapePreservingNewlines("a\n<3\r\n").getSafeHtmlString());
@@ -199,6 +344,49 @@ public class SafeHtmlsTest extends TestCase {
         SafeHtmls.htmlEscapePreservingWhitespace("a\t\t b").getSafeHtmlString());
   }
 
+  public void testHtmlEscapePreservingWhitespace_spaceRuns() {
+    assertEquals(
+        "&#160; &#160; ", SafeHtmls.htmlEscapePreservingWhitespace("    ").getSafeHtmlString());
+    assertEquals(
+        "<br>&#160; <br><span style=\"white-space:pre\">\t</span>&#160;&lt;",
+        SafeHtmls.htmlEscapePreservingWhitespace("\r\n  \n\t <").getSafeHtmlString());
+  }
+
+  public void testHtmlEscapePreserving_matchesRegexRewrites() {
+    // The regular expressions the single-pass implementation replaced.
+    String alphabet = " \t\r\na<&\u0000\u00e9";
+    Random random = new Random(42);
+    for (int n = 0; n < 2000; n++) {
+      StringBuilder text = new StringBuilder();
+      for (int i = random.nextInt(12); i > 0; i--) {
+        text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      String escaped = SafeHtmls.htmlEscape(text.toString()).getSafeHtmlString();
+      assertEquals(
+          escaped.replaceAll("\r?\n|\r", "<br>"),
+          SafeHtmls.htmlEscapePreservingNewlines(text.toString()).getSafeHtmlString());
+      assertEquals(
+          escaped
+              .replaceAll("(^|[\r\n\t ]) ", "$1&#160;")
+              .replaceAll("\r?\n|\r", "<br>")
+              .replaceAll("(\t+)", "<span style=\"white-space:pre\">$1</span>"),
+          SafeHtmls.htmlEscapePreservingWhitespace(text.toString()).getSafeHtmlString());
+    }
+  }
+
+  public void testHtmlEscapePreservingTo() throws Exception {
+    String text = " a\r\n\t\t <b>";
+    StringBuilder sb = new StringBuilder("x");
+    SafeHtmls.htmlEscapePreservingNewlinesTo(text, sb);
+    assertEquals(
+        "x" + SafeHtmls.htmlEscapePreservingNewlines(text).getSafeHtmlString(), sb.toString());
+
+    sb = new StringBuilder("x");
+    SafeHtmls.htmlEscapePreservingWhitespaceTo(text, sb);
+    assertEquals(
+        "x" + SafeHtmls.htmlEscapePreservingWhitespace(text).getSafeHtmlString(), sb.toString());
+  }
+
   public void testComment() {
     assertEquals("<!--&lt;script&gt;-->", SafeHtmls.comment("<script>").getSafeHtmlString());
   }
@@ -17,7 +17,11 @@
 package com.google.common.html.types;
 
 import com.google.common.annotations.GwtCompatible;
+import com.google.common.annotations.GwtIncompatible;
 import com.google.common.testing.EqualsTester;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import junit.framework.TestCase;
 
 /** Unit tests for {@link SafeScript}. */
@@ -40,4 +44,29 @@ public class SafeScriptTest extends TestCase {
             SafeScripts.fromConstant("var string = 'hello again';"))
         .testEquals();
   }
+
+  public void testWriteTo() throws Exception {
+    SafeScript value = SafeScripts.fromConstant("var s = 'caf\u00e9';");
+    StringBuilder sb = new StringBuilder();
+    value.writeTo(sb);
+    assertEquals(value.getSafeScriptString(), sb.toString());
+  }
+
+  @GwtIncompatible("java.io.OutputStream")
+  public void testWriteTo_outputStream() throws Exception {
+    SafeScript value = SafeScripts.fromConstant("var s = 'caf\u00e9';");
+    for (String charsetName : new String[] {"UTF-8", "ISO-8859-1"}) {
+      Charset charset = Charset.forName(charsetName);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      value.writeTo(out, charset);
+      assertEquals(value.getSafeScriptString(), new String(out.toByteArray(), charset));
+    }
+  }
+
+  @GwtIncompatible("java.nio.charset.Charset")
+  public void testToUtf8Bytes() throws Exception {
+    SafeScript value = SafeScripts.fromConstant("var s = 'caf\u00e9';");
+    byte[] expected = value.getSafeScriptString().getBytes("UTF-8");
+    assertTrue(Arrays.equals(expected, value.toUtf8Bytes()));
+  }
 }
@@ -38,6 +38,12 @@ public class SafeStyleBuilderTest extends TestCase {
     assertEquals("", style.getSafeStyleString());
   }
 
+  public void testReset() {
+    SafeStyleBuilder builder = new SafeStyleBuilder().backgroundColor("red").width("1px");
+    assertEquals("", builder.reset().build().getSafeStyleString());
+    assertEquals("width:2px;", builder.width("2px").build().getSafeStyleString());
+  }
+
   public void testConstantDisallowsUnsafeCharacters() {
     assertConstantNotAllowed("<");
     assertConstantNotAllowed(">");
@@ -17,7 +17,11 @@
 package com.google.common.html.types;
 
 import com.google.common.annotations.GwtCompatible;
+import com.google.common.annotations.GwtIncompatible;
 import com.google.common.testing.EqualsTester;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import junit.framework.TestCase;
 
 /** Unit tests for {@link SafeStyleSheet}. */
@@ -41,4 +45,29 @@ public class SafeStyleSheetTest extends TestCase {
             SafeStyleSheets.fromConstant("P.special { color:green ; }"))
         .testEquals();
   }
+
+  public void testWriteTo() throws Exception {
+    SafeStyleSheet value = SafeStyleSheets.fromConstant("P { content: 'caf\u00e9'; }");
+    StringBuilder sb = new StringBuilder();
+    value.writeTo(sb);
+    assertEquals(value.getSafeStyleSheetString(), sb.toString());
+  }
+
+  @GwtIncompatible("java.io.OutputStream")
+  public void testWriteTo_outputStream() throws Exception {
+    SafeStyleSheet value = SafeStyleSheets.fromConstant("P { content: 'caf\u00e9'; }");
+    for (String charsetName : new String[] {"UTF-8", "ISO-8859-1"}) {
+      Charset charset = Charset.forName(charsetName);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      value.writeTo(out, charset);
+      assertEquals(value.getSafeStyleSheetString(), new String(out.toByteArray(), charset));
+    }
+  }
+
+  @GwtIncompatible("java.nio.charset.Charset")
+  public void testToUtf8Bytes() throws Exception {
+    SafeStyleSheet value = SafeStyleSheets.fromConstant("P { content: 'caf\u00e9'; }");
+    byte[] expected = value.getSafeStyleSheetString().getBytes("UTF-8");
+    assertTrue(Arrays.equals(expected, value.toUtf8Bytes()));
+  }
 }
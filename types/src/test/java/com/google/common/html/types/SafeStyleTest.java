@@ -19,7 +19,10 @@ package com.google.common.html.types;
 import static com.google.common.html.types.testing.HtmlConversions.newSafeStyleForTest;
 
 import com.google.common.annotations.GwtCompatible;
+import com.google.common.annotations.GwtIncompatible;
 import com.google.common.testing.EqualsTester;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
 import junit.framework.TestCase;
 
 /** Unit tests for {@link SafeStyle} and its factory methods. */
@@ -40,4 +43,22 @@ public class SafeStyleTest extends TestCase {
         .addEqualityGroup(newSafeStyleForTest("width: 2em;"), newSafeStyleForTest("width: 2em;"))
         .testEquals();
   }
+
+  public void testWriteTo() throws Exception {
+    SafeStyle value = newSafeStyleForTest("content: 'caf\u00e9';");
+    StringBuilder sb = new StringBuilder();
+    value.writeTo(sb);
+    assertEquals(value.getSafeStyleString(), sb.toString());
+  }
+
+  @GwtIncompatible("java.io.OutputStream")
+  public void testWriteTo_outputStream() throws Exception {
+    SafeStyle value = newSafeStyleForTest("content: 'caf\u00e9';");
+    for (String charsetName : new String[] {"UTF-8", "ISO-8859-1"}) {
+      Charset charset = Charset.forName(charsetName);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      value.writeTo(out, charset);
+      assertEquals(value.getSafeStyleString(), new String(out.toByteArray(), charset));
+    }
+  }
 }
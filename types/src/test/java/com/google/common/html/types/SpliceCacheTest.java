@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import static com.google.common.html.types.testing.HtmlConversions.newSafeHtmlForTest;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Strings;
+import java.util.Collections;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link SpliceCache}. */
+@GwtIncompatible("SpliceCache")
+public class SpliceCacheTest extends TestCase {
+
+  private static final SplicePlan ITEM =
+      SpliceableSafeHtml.parse(newSafeHtmlForTest("<li><!--text--></li>")).compile();
+  private static final SplicePlan LIST =
+      SpliceableSafeHtml.parse(newSafeHtmlForTest("<ul><!--first--><!--second--></ul>"))
+          .compile();
+
+  public void testSplice() {
+    SpliceCache cache = new SpliceCache(1000);
+    SafeHtml text = newSafeHtmlForTest("a");
+    SafeHtml a = cache.splice(ITEM, text);
+    assertEquals("<li>a</li>", a.getSafeHtmlString());
+    // The same values find the same result.
+    assertSame(a, cache.splice(ITEM, text));
+    assertEquals(1, cache.stats().hitCount());
+    assertEquals(1, cache.stats().missCount());
+
+    // Values are compared by identity, so an equal value is spliced again.
+    SafeHtml again = cache.splice(ITEM, newSafeHtmlForTest("a"));
+    assertEquals(a, again);
+    assertNotSame(a, again);
+    assertEquals(2, cache.stats().missCount());
+
+    SafeHtml b = cache.splice(ITEM, newSafeHtmlForTest("b"));
+    assertEquals("<li>b</li>", b.getSafeHtmlString());
+    assertEquals(3, cache.stats().missCount());
+
+    // The same values in another plan are another result.
+    SafeHtml list = cache.splice(LIST, a, b);
+    assertEquals("<ul><li>a</li><li>b</li></ul>", list.getSafeHtmlString());
+    assertEquals(4, cache.stats().missCount());
+
+    cache.clear();
+    assertNotSame(a, cache.splice(ITEM, text));
+  }
+
+  public void testSplice_nested() {
+    SpliceCache cache = new SpliceCache(1000);
+    SafeHtml a = SafeHtmls.htmlEscape("a");
+    SafeHtml b = SafeHtmls.htmlEscape("b");
+    SafeHtml first = renderList(cache, a, b);
+    SafeHtml second = renderList(cache, a, SafeHtmls.htmlEscape("c"));
+    assertEquals("<ul><li>a</li><li>c</li></ul>", second.getSafeHtmlString());
+    // The unchanged item and nothing else was found.
+    assertEquals(1, cache.stats().hitCount());
+    assertSame(first, renderList(cache, a, b));
+    assertEquals(4, cache.stats().hitCount());
+  }
+
+  private static SafeHtml renderList(SpliceCache cache, SafeHtml first, SafeHtml second) {
+    return cache.splice(LIST, cache.splice(ITEM, first), cache.splice(ITEM, second));
+  }
+
+  public void testSplice_map() {
+    SpliceCache cache = new SpliceCache(1000);
+    SpliceableSafeHtml template = SpliceableSafeHtml.parse(newSafeHtmlForTest("<p><!--x--></p>"));
+    SafeHtml value = newSafeHtmlForTest("1");
+    SafeHtml html = cache.splice(template, Collections.singletonMap("x", value));
+    assertEquals("<p>1</p>", html.getSafeHtmlString());
+    assertSame(html, cache.splice(template.compile(), value));
+    try {
+      cache.splice(template, Collections.<String, SafeHtml>emptyMap());
+      fail();
+    } catch (IllegalArgumentException expected) {
+      assertEquals("Assignment missing for placeholder x", expected.getMessage());
+    }
+    try {
+      cache.splice(template.compile());
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testEvictsByLength() {
+    SpliceCache cache = new SpliceCache(100);
+    for (int i = 0; i < 10; i++) {
+      SafeHtml html = cache.splice(ITEM, newSafeHtmlForTest(i + Strings.repeat("x", 40)));
+      assertEquals("<li>" + i + Strings.repeat("x", 40) + "</li>", html.getSafeHtmlString());
+    }
+    // Each result is 50 chars long, so the last two are kept.
+    assertEquals(8, cache.stats().evictionCount());
+  }
+
+  public void testCachesResultsOfAFractionOfTheCapacity() {
+    SpliceCache cache = new SpliceCache(1000);
+    SafeHtml value = newSafeHtmlForTest(Strings.repeat("x", 391));
+    SafeHtml html = cache.splice(ITEM, value);
+    assertEquals(400, html.length());
+    assertSame(html, cache.splice(ITEM, value));
+    assertEquals(1, cache.stats().hitCount());
+    assertEquals(0, cache.stats().evictionCount());
+  }
+}
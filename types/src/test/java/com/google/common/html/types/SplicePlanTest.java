@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.html.types;
+
+import static com.google.common.html.types.testing.HtmlConversions.newSafeHtmlForTest;
+
+import com.google.common.annotations.GwtCompatible;
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.html.types.SpliceableSafeHtml.Segment;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import junit.framework.TestCase;
+
+/** Unit tests for {@link SplicePlan}. */
+@GwtCompatible
+public class SplicePlanTest extends TestCase {
+
+  private static final SpliceableSafeHtml PAGE =
+      new SpliceableSafeHtml(
+          ImmutableList.of(
+              Segment.fromSafeHtml(newSafeHtmlForTest("<html>")),
+              Segment.fromSafeHtml(newSafeHtmlForTest("<title>")),
+              Segment.fromPlaceholderLabel("title"),
+              Segment.fromSafeHtml(newSafeHtmlForTest("</title><h1>")),
+              Segment.fromPlaceholderLabel("title"),
+              Segment.fromPlaceholderLabel("body"),
+              Segment.fromSafeHtml(newSafeHtmlForTest("</html>"))));
+
+  private static final SafeHtml TITLE = newSafeHtmlForTest("T");
+  private static final SafeHtml BODY = newSafeHtmlForTest("</h1><p>B</p>");
+
+  public void testCompile() {
+    SplicePlan plan = PAGE.compile();
+    assertSame(plan, PAGE.compile());
+    assertEquals(2, plan.getSlotCount());
+    assertEquals(ImmutableList.of("title", "body"), plan.getLabels());
+    assertEquals(0, plan.slotOf("title"));
+    assertEquals(1, plan.slotOf("body"));
+    try {
+      plan.slotOf("foo");
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testSplice() throws Exception {
+    SplicePlan plan = PAGE.compile();
+    String expected = "<html><title>T</title><h1>T</h1><p>B</p></html>";
+    assertEquals(expected, plan.splice(TITLE, BODY).getSafeHtmlString());
+    assertEquals(expected, plan.bind().set("body", BODY).set(0, TITLE).build().getSafeHtmlString());
+    StringBuilder sb = new StringBuilder();
+    plan.spliceTo(sb, TITLE, BODY);
+    assertEquals(expected, sb.toString());
+    sb.setLength(0);
+    plan.bind().set(0, TITLE).set(1, BODY).buildTo(sb);
+    assertEquals(expected, sb.toString());
+  }
+
+  public void testSplice_missingValues() throws Exception {
+    SplicePlan plan = PAGE.compile();
+    try {
+      plan.splice(TITLE);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      plan.splice(TITLE, null);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      assertEquals("Assignment missing for placeholder body", expected.getMessage());
+    }
+    SplicePlan.Binder binder = plan.bind().set(1, BODY);
+    try {
+      binder.build();
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    StringBuilder sb = new StringBuilder();
+    try {
+      binder.buildTo(sb);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      assertEquals("", sb.toString());
+    }
+    assertEquals(
+        "<html><title></title><h1></h1><p>B</p></html>",
+        binder.buildIgnoringMissing().getSafeHtmlString());
+    assertEquals(
+        "<html><title></title><h1></html>",
+        binder.clear().buildIgnoringMissing().getSafeHtmlString());
+  }
+
+  public void testSplice_longResultLinksToValues() {
+    SafeHtml body = newSafeHtmlForTest(Strings.repeat("<p>B</p>", 100));
+    SafeHtml html = PAGE.compile().splice(TITLE, body);
+    assertFalse(html.isFlat());
+    assertEquals(
+        "<html><title>T</title><h1>T" + body.getSafeHtmlString() + "</html>",
+        html.getSafeHtmlString());
+  }
+
+  @GwtIncompatible("SplicePlan.spliceToUtf8Buffers")
+  public void testSpliceToUtf8Buffers() {
+    SplicePlan plan = PAGE.compile();
+    SafeHtml title = newSafeHtmlForTest("caf\u00e9");
+    String html = "<html><title>caf\u00e9</title><h1>caf\u00e9</html>";
+    for (int i = 0; i < 2; i++) {
+      // Consuming the buffers of one splice leaves those of the next intact.
+      ByteBuffer[] buffers = plan.spliceToUtf8Buffers(title, SafeHtml.EMPTY);
+      assertEquals(5, buffers.length);
+      assertTrue(buffers[0].isDirect());
+      assertTrue(buffers[0].isReadOnly());
+      assertEquals(html, utf8String(buffers));
+    }
+    assertEquals(
+        html,
+        utf8String(plan.bind().set(0, title).set(1, SafeHtml.EMPTY).buildUtf8Buffers()));
+    try {
+      plan.spliceToUtf8Buffers(title, null);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @GwtIncompatible("java.nio.ByteBuffer")
+  private static String utf8String(ByteBuffer[] buffers) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (ByteBuffer buffer : buffers) {
+      while (buffer.hasRemaining()) {
+        out.write(buffer.get());
+      }
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  public void testNoPlaceholders() {
+    SafeHtml html = newSafeHtmlForTest("<br>");
+    assertSame(html, new SpliceableSafeHtml(html).compile().splice());
+    assertSame(
+        SafeHtml.EMPTY,
+        new SpliceableSafeHtml(Collections.<Segment>emptyList()).compile().bind().build());
+  }
+}
@@ -20,6 +20,7 @@ import static com.google.common.html.types.testing.HtmlConversions.newSafeHtmlFo
 
 import com.google.common.annotations.GwtCompatible;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.html.types.SpliceableSafeHtml.Segment;
 import com.google.common.html.types.SpliceableSafeHtml.Segment.Type;
 import java.util.Collections;
@@ -221,4 +222,113 @@ public class SpliceableSafeHtmlTest extends TestCase {
     SpliceableSafeHtml spliced = spliceableSafeHtml.spliceSomePreservingPlaceholders(assignments);
     assertEquals("<div>AAA<span>BBB</span><!--after--></div>", spliced.toString());
   }
+
+  public void testParse() {
+    SpliceableSafeHtml parsed =
+        SpliceableSafeHtml.parse(
+            newSafeHtmlForTest("<div><!--a--><span title=\"x\"><!--b.c--></span><!--a--></div>"));
+    List<Segment> segments = parsed.getSegments();
+    assertEquals(7, segments.size());
+    assertEquals("<div>", segments.get(0).getSafeHtml().getSafeHtmlString());
+    assertEquals("a", segments.get(1).getPlaceholderLabel());
+    assertEquals("b.c", segments.get(3).getPlaceholderLabel());
+    assertEquals("a", segments.get(5).getPlaceholderLabel());
+    assertEquals("</div>", segments.get(6).getSafeHtml().getSafeHtmlString());
+    assertEquals(
+        "<div><!--a--><span title=\"x\"><!--b.c--></span><!--a--></div>", parsed.toString());
+
+    // Placeholders at either end, and next to each other.
+    assertEquals(
+        ImmutableList.of("x", "y"),
+        SpliceableSafeHtml.parse(newSafeHtmlForTest("<!--x--><!--y-->")).compile().getLabels());
+  }
+
+  public void testParse_keepsOtherComments() {
+    String html = "<p><!-- nav --><!----><!--><!---><!--a&b--></p><!--unterminated";
+    SpliceableSafeHtml parsed = SpliceableSafeHtml.parse(newSafeHtmlForTest(html));
+    assertTrue(parsed.getPlaceholderLabels().isEmpty());
+    assertEquals(html, parsed.getSafeHtml().getSafeHtmlString());
+  }
+
+  public void testParse_onlyRecognizesCommentsInMarkup() {
+    String html =
+        "<a title=\"<!--a-->\" data-x='<!--b-->'>"
+            + "<a b=c'd title='><!--x-->'>"
+            + "<p></a title=\"><!--x-->\">"
+            + "<script>var s = '<!--c-->';</script >"
+            + "<TEXTAREA><!--d--></textareas></TextArea>"
+            + "<style><!--e--></style>"
+            + "<!DOCTYPE <!--f-->>"
+            + "<!--g-->"
+            + "<plaintext><!--h--></plaintext><!--i-->";
+    SpliceableSafeHtml parsed = SpliceableSafeHtml.parse(newSafeHtmlForTest(html));
+    assertEquals(ImmutableList.of("g"), parsed.compile().getLabels());
+    assertEquals(html, parsed.toString());
+  }
+
+  public void testParse_readsMarkupAsTheTokenizerDoes() {
+    String html =
+        "<svg/><!--a-->"
+            + "<svg><![CDATA[ > <!--b-->]]><g title='</svg>'><!--c--></g></svg><!--d-->"
+            + "<noscript><img src=x></noscript><!--e-->"
+            + "<script><!-- x --></script><!--f-->"
+            + "<!-- --!><!--g-->"
+            + "<script>a</script\"<!--h--></script><!--i-->"
+            + "<style></\u017Ftyle><!--j--></style><!--k-->";
+    SpliceableSafeHtml parsed = SpliceableSafeHtml.parse(newSafeHtmlForTest(html));
+    assertEquals(
+        ImmutableList.of("a", "d", "e", "f", "g", "i", "k"), parsed.compile().getLabels());
+    assertEquals(html, parsed.toString());
+  }
+
+  public void testParse_keepsTheRestWhereTheTokenizerIsNotEnough() {
+    String[] htmls = {
+      "<script><!--<script></script><!--a--></script><!--b-->",
+      "<noscript><a title=\"</noscript><!--a-->\"></noscript><!--b-->",
+      "<svg><p></svg><!--a-->",
+      "<math><mi><style></math><!--a--></style></mi></math><!--b-->",
+    };
+    for (String html : htmls) {
+      SpliceableSafeHtml parsed = SpliceableSafeHtml.parse(newSafeHtmlForTest(html));
+      assertTrue(html, parsed.getPlaceholderLabels().isEmpty());
+      assertEquals(html, parsed.toString());
+    }
+  }
+
+  public void testParse_isCached() {
+    SafeHtml html = newSafeHtmlForTest("<p><!--a--></p>");
+    SpliceableSafeHtml parsed = SpliceableSafeHtml.parse(html);
+    assertSame(parsed, SpliceableSafeHtml.parse(html));
+    assertNotSame(parsed, SpliceableSafeHtml.parse(newSafeHtmlForTest("<p><!--a--></p>")));
+  }
+
+  public void testPlaceholderIndex() {
+    SpliceableSafeHtml spliceableSafeHtml =
+        new SpliceableSafeHtml(
+            ImmutableList.of(
+                Segment.fromPlaceholderLabel("b"),
+                Segment.fromSafeHtml(newSafeHtmlForTest("<hr>")),
+                Segment.fromPlaceholderLabel("a"),
+                Segment.fromPlaceholderLabel("b")));
+    Set<String> labels = spliceableSafeHtml.getPlaceholderLabels();
+    assertEquals(ImmutableList.of("b", "a"), ImmutableList.copyOf(labels));
+    // Each call returns a new set, which callers may change.
+    labels.removeAll(ImmutableSet.of("a"));
+    assertEquals(ImmutableSet.of("b"), labels);
+    assertEquals(ImmutableSet.of("b", "a"), spliceableSafeHtml.getPlaceholderLabels());
+
+    assertTrue(spliceableSafeHtml.hasPlaceholder("a"));
+    assertFalse(spliceableSafeHtml.hasPlaceholder("c"));
+
+    assertEquals(
+        ImmutableList.of("b", "a"),
+        spliceableSafeHtml.getMissingPlaceholderLabels(Collections.<String>emptySet()));
+    assertEquals(
+        ImmutableList.of("a"),
+        spliceableSafeHtml.getMissingPlaceholderLabels(ImmutableSet.of("b", "c")));
+    assertTrue(
+        spliceableSafeHtml
+            .getMissingPlaceholderLabels(spliceableSafeHtml.getPlaceholderLabels())
+            .isEmpty());
+  }
 }